@@ -0,0 +1,45 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.UserApiApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+final class BenchmarkContexts {
+
+    private BenchmarkContexts(){
+    }
+
+    /**
+     * Boots the application without a web server against its embedded H2 datasource.
+     */
+    static ConfigurableApplicationContext start(String... args){
+        return run(WebApplicationType.NONE, args);
+    }
+
+    /**
+     * Boots the application with its embedded Tomcat on a random port, see {@link #port}.
+     */
+    static ConfigurableApplicationContext startServer(String... args){
+        String[] arguments = new String[args.length + 1];
+        arguments[0] = "--server.port=0";
+        System.arraycopy(args, 0, arguments, 1, args.length);
+        return run(WebApplicationType.SERVLET, arguments);
+    }
+
+    static int port(ConfigurableApplicationContext context){
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType type, String... args){
+        SpringApplication application = new SpringApplication(UserApiApplication.class);
+        application.setWebApplicationType(type);
+        application.setLogStartupInfo(false);
+
+        String[] arguments = new String[args.length + 2];
+        arguments[0] = "--spring.main.banner-mode=off";
+        arguments[1] = "--logging.level.root=WARN";
+        System.arraycopy(args, 0, arguments, 2, args.length);
+        return application.run(arguments);
+    }
+}
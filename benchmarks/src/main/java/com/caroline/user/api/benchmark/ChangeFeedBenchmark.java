@@ -0,0 +1,107 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.changes.UserChangeRelay;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A downstream consumer catching up after {@value #CHANGES_PER_POLL} updates: re-reading the whole table
+ * through {@code GET /user/export} (what diffing consumers do today) vs reading just the changes from
+ * {@code GET /user/changes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ChangeFeedBenchmark {
+
+    private static final int CHANGES_PER_POLL = 10;
+
+    @Param({"1000", "100000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService service;
+
+    private UserChangeRelay relay;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private List<Integer> ids;
+
+    private long since;
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.startServer("--user.ratelimit.enabled=false");
+        service = context.getBean(UserService.class);
+        relay = context.getBean(UserChangeRelay.class);
+
+        UserRepository repository = context.getBean(UserRepository.class);
+        ids = new ArrayList<>(users);
+        List<User> chunk = new ArrayList<>(1000);
+        for (int i = 0; i < users; i++) {
+            chunk.add(new User(null, "User " + i, "feed" + i + "@email.com", "{noop}123"));
+            if (chunk.size() == 1000 || i == users - 1) {
+                repository.saveAll(chunk).forEach(user -> ids.add(user.getId()));
+                chunk.clear();
+            }
+        }
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + BenchmarkContexts.port(context) + "/user";
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void change() throws InterruptedException {
+        since = relay.getPublished();
+        List<UserDTO> updates = new ArrayList<>(CHANGES_PER_POLL);
+        int start = ThreadLocalRandom.current().nextInt(users);
+        for (int i = 0; i < CHANGES_PER_POLL; i++) {
+            int index = (start + i) % users;
+            updates.add(UserDTO.builder().id(ids.get(index)).name("User " + System.nanoTime())
+                    .email("feed" + index + "@email.com").password("{noop}123").build());
+        }
+        service.updateAllEncoded(updates);
+        while (relay.getPublished() < since + CHANGES_PER_POLL)
+            Thread.sleep(1);
+    }
+
+    @Benchmark
+    public long fullTable() throws Exception {
+        return get(baseUrl + "/export");
+    }
+
+    @Benchmark
+    public long changeFeed() throws Exception {
+        return get(baseUrl + "/changes?wait=0&since=" + since);
+    }
+
+    private long get(String url) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray()).body().length;
+    }
+}
@@ -0,0 +1,90 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.controller.PageCursor;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A mass-deactivation campaign ({@code DELETE /user/{id}} from 8 clients) next to 8 clients paging through
+ * {@code GET /user}, with the compactor purging tombstones every second, throttled to {@code compactionRate}
+ * rows/s. Compare the {@code read} latency across rates.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class DeactivationBenchmark {
+
+    private static final int USERS = 200_000;
+
+    @Param({"500", "1000000"})
+    private int compactionRate;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private List<Integer> ids;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.startServer("--user.ratelimit.enabled=false",
+                "--user.compaction.rate=" + compactionRate, "--user.compaction.interval=1s",
+                "--user.compaction.grace=0s");
+
+        UserRepository repository = context.getBean(UserRepository.class);
+        ids = new ArrayList<>(USERS);
+        List<User> chunk = new ArrayList<>(1000);
+        for (int i = 0; i < USERS; i++) {
+            chunk.add(new User(null, "User " + i, "campaign" + i + "@email.com", "{noop}123"));
+            if (chunk.size() == 1000) {
+                repository.saveAll(chunk).forEach(user -> ids.add(user.getId()));
+                chunk.clear();
+            }
+        }
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + BenchmarkContexts.port(context) + "/user";
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    @Group("campaign")
+    @GroupThreads(8)
+    public int delete() throws Exception {
+        int id = ids.get(next.getAndIncrement() % USERS);
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @Group("campaign")
+    @GroupThreads(8)
+    public int read() throws Exception {
+        String cursor = PageCursor.encode(ids.get(ThreadLocalRandom.current().nextInt(USERS)));
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + "?size=50&cursor=" + cursor)).GET().build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
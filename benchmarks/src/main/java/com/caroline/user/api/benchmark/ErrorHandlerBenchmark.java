@@ -0,0 +1,48 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.exception.DataIntegrityViolationException;
+import com.caroline.user.api.exception.NotFoundException;
+import com.caroline.user.api.exception.ResourceExceptionHandler;
+import com.caroline.user.api.exception.StandardError;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorHandlerBenchmark {
+
+    private final ResourceExceptionHandler handler = new ResourceExceptionHandler();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp(){
+        request = new MockHttpServletRequest("GET", "/user/5");
+    }
+
+    @Benchmark
+    public ResponseEntity<StandardError> notFound(){
+        return handler.notFound(new NotFoundException("User not found"), request);
+    }
+
+    @Benchmark
+    public ResponseEntity<StandardError> dataIntegrityViolation(){
+        return handler.dataIntegrityViolation(new DataIntegrityViolationException("Email already registered"), request);
+    }
+
+    @Benchmark
+    public byte[] notFoundSerialized() throws Exception {
+        return objectMapper.writeValueAsBytes(handler.notFound(new NotFoundException("User not found"), request).getBody());
+    }
+}
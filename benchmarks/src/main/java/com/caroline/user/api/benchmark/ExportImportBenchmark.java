@@ -0,0 +1,83 @@
+package com.caroline.user.api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Full-table import and export over HTTP. Both sides stream, so run with {@code -prof gc} and a small heap
+ * (e.g. {@code -jvmArgs -Xmx256m}) to check that memory stays flat as the row count grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(1)
+public class ExportImportBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private final AtomicInteger run = new AtomicInteger();
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.startServer("--user.ratelimit.enabled=false", "--user.cache.maximum-size=1000");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + BenchmarkContexts.port(context) + "/user";
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public int importThenExport() throws Exception {
+        int prefix = run.incrementAndGet();
+        HttpRequest importRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> lines(prefix)))
+                .build();
+        client.send(importRequest, HttpResponse.BodyHandlers.discarding());
+
+        HttpRequest exportRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/export")).GET().build();
+        return client.send(exportRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private InputStream lines(int prefix){
+        return new SequenceInputStream(new Enumeration<>() {
+            private int i;
+
+            @Override
+            public boolean hasMoreElements() {
+                return i < rows;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                i++;
+                String line = "{\"name\":\"User " + i + "\",\"email\":\"r" + prefix + "u" + i + "@email.com\"}\n";
+                return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the /user endpoints over HTTP with many concurrent clients. Run in SampleTime mode for
+ * p99 latency and in Throughput mode for requests per second, e.g. {@code -bm sample,thrpt}.
+ * The "virtual" mode needs a Java 21+ runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(200)
+@Fork(1)
+public class HttpLoadBenchmark {
+
+    private static final int SEEDED_USERS = 1_000;
+
+    @Param({"platform", "virtual"})
+    private String executionMode;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private List<Integer> ids;
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.startServer(
+                "--user.execution.virtual-threads=" + "virtual".equals(executionMode),
+                "--user.ratelimit.enabled=false");
+
+        List<User> users = new ArrayList<>(SEEDED_USERS);
+        for (int i = 0; i < SEEDED_USERS; i++)
+            users.add(new User(null, "User " + i, "user" + i + "@email.com", "123"));
+        ids = new ArrayList<>(SEEDED_USERS);
+        context.getBean(UserRepository.class).saveAll(users).forEach(u -> ids.add(u.getId()));
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + BenchmarkContexts.port(context) + "/user";
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public int findById() throws Exception {
+        Integer id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET().build());
+    }
+
+    @Benchmark
+    public int findPage() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "?size=50")).GET().build());
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,57 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the service/repository timing aspect: the same calls with the aspect enabled and disabled.
+ * The cached findViewById path is the cheapest call, so it shows the worst-case relative overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    @Param({"true", "false"})
+    private boolean instrumented;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService service;
+
+    private Integer id;
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.start("--user.metrics.aspect.enabled=" + instrumented);
+        service = context.getBean(UserService.class);
+        id = context.getBean(UserRepository.class)
+                .save(new User(null, "Bench", "bench@email.com", "123")).getId();
+        service.findViewById(id);
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public UserDTO findViewByIdCached(){
+        return service.findViewById(id);
+    }
+
+    @Benchmark
+    public List<UserDTO> findPage(){
+        return service.findPage(null, 10);
+    }
+}
@@ -0,0 +1,52 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.mapper.UserMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private User user;
+
+    private UserDTO userDTO;
+
+    @Setup
+    public void setUp(){
+        user = new User(1, "Valdir", "valdir@email.com", "123");
+        userDTO = new UserDTO(1, "Valdir", "valdir@email.com", "123", 0L);
+    }
+
+    @Benchmark
+    public UserDTO modelMapperToDTO(){
+        return modelMapper.map(user, UserDTO.class);
+    }
+
+    @Benchmark
+    public UserDTO userMapperToDTO(){
+        return userMapper.toDTO(user);
+    }
+
+    @Benchmark
+    public User modelMapperToEntity(){
+        return modelMapper.map(userDTO, User.class);
+    }
+
+    @Benchmark
+    public User userMapperToEntity(){
+        return userMapper.toEntity(userDTO);
+    }
+}
@@ -0,0 +1,70 @@
+package com.caroline.user.api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * POST /user latency under concurrent writers while passwords are hashed on the bounded hasher pool.
+ * Compare p0.99 across strengths; strength 4 is close to the cost of not hashing at all.
+ * 503 responses mean the hasher queue was full and are counted in {@link #rejected}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class PasswordWriteBenchmark {
+
+    @Param({"4", "10", "12"})
+    private int strength;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private URI uri;
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.startServer(
+                "--user.password.bcrypt.strength=" + strength,
+                "--user.password.queue-capacity=1024",
+                "--user.ratelimit.enabled=false");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        uri = URI.create("http://localhost:" + BenchmarkContexts.port(context) + "/user");
+    }
+
+    @TearDown
+    public void tearDown(){
+        if (rejected.get() > 0)
+            System.out.println("rejected with 503: " + rejected.get());
+        context.close();
+    }
+
+    @Benchmark
+    public int create() throws Exception {
+        int i = sequence.incrementAndGet();
+        String json = "{\"name\":\"User " + i + "\",\"email\":\"write" + i + "@email.com\",\"password\":\"123\"}";
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 503)
+            rejected.incrementAndGet();
+        return status;
+    }
+}
@@ -0,0 +1,86 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.controller.PageCursor;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uncached /user reads under 64 concurrent clients across pool and statement cache sizes. Pick the smallest
+ * pool that reaches peak throughput; watch {@code hikaricp.connections.pending} and
+ * {@code user.datasource.saturation} to see where requests start queueing for a connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class PoolSizingBenchmark {
+
+    private static final int SEEDED_USERS = 10_000;
+
+    @Param({"2", "5", "10", "20", "50"})
+    private int poolSize;
+
+    @Param({"8", "64"})
+    private int statementCacheSize;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private List<Integer> ids;
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.startServer(
+                "--user.datasource.pool-size=" + poolSize,
+                "--user.datasource.statement-cache-size=" + statementCacheSize,
+                "--user.cache.enabled=false",
+                "--user.ratelimit.enabled=false");
+
+        List<User> users = new ArrayList<>(SEEDED_USERS);
+        for (int i = 0; i < SEEDED_USERS; i++)
+            users.add(new User(null, "User " + i, "user" + i + "@email.com", "123"));
+        ids = new ArrayList<>(SEEDED_USERS);
+        context.getBean(UserRepository.class).saveAll(users).forEach(u -> ids.add(u.getId()));
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + BenchmarkContexts.port(context) + "/user";
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public int findById() throws Exception {
+        Integer id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET().build());
+    }
+
+    @Benchmark
+    public int findPage() throws Exception {
+        String cursor = PageCursor.encode(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "?size=50&cursor=" + cursor)).GET().build());
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
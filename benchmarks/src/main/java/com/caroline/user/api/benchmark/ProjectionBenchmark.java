@@ -0,0 +1,99 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.mapper.UserMapper;
+import com.caroline.user.api.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Entity load + mapping against the constructor projection used by the read endpoints.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private static final int SEEDED_USERS = 10_000;
+
+    private static final int PAGE_SIZE = 500;
+
+    private ConfigurableApplicationContext context;
+
+    private UserRepository repository;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private TransactionTemplate readOnly;
+
+    private final UserMapper mapper = new UserMapper();
+
+    private List<Integer> ids;
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.start("--user.cache.enabled=false");
+        repository = context.getBean(UserRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<User> users = new ArrayList<>(SEEDED_USERS);
+        for (int i = 0; i < SEEDED_USERS; i++)
+            users.add(new User(null, "User " + i, "user" + i + "@email.com", "123"));
+        ids = new ArrayList<>(SEEDED_USERS);
+        repository.saveAll(users).forEach(u -> ids.add(u.getId()));
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public UserDTO findByIdEntity(){
+        Integer id = randomId();
+        return readOnly.execute(status -> mapper.toDTO(repository.findById(id).orElseThrow()));
+    }
+
+    @Benchmark
+    public UserDTO findByIdProjection(){
+        Integer id = randomId();
+        return readOnly.execute(status -> repository.findViewById(id).orElseThrow());
+    }
+
+    @Benchmark
+    public List<UserDTO> findPageEntity(){
+        return readOnly.execute(status -> EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory)
+                .createQuery("select u from User u where u.id > 0 order by u.id", User.class)
+                .setMaxResults(PAGE_SIZE)
+                .getResultStream()
+                .map(mapper::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<UserDTO> findPageProjection(){
+        return readOnly.execute(status -> repository.findViewsByIdGreaterThan(0, PageRequest.of(0, PAGE_SIZE)));
+    }
+
+    private Integer randomId(){
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.ratelimit.AdaptiveConcurrencyLimiter;
+import com.caroline.user.api.ratelimit.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limiter cost under contention: 16 threads on one hot bucket versus spread over many clients, and
+ * acquire/release on the shared concurrency limiter. Compare with {@code -t 1} for the uncontended cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(16)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "1024"})
+    private int clients;
+
+    private String[] keys;
+
+    private TokenBucketRateLimiter rateLimiter;
+
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Setup
+    public void setUp(){
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++)
+            keys[i] = "10.0.0." + i + " GET /user/{id}";
+        rateLimiter = new TokenBucketRateLimiter(1_000_000_000, 1_000_000, 100_000);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(1_000, 1, 1_000, TimeUnit.SECONDS.toNanos(1), 0.9);
+    }
+
+    @Benchmark
+    public long tokenBucket(){
+        return rateLimiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public boolean concurrencyLimit(){
+        boolean acquired = concurrencyLimiter.tryAcquire();
+        if (acquired)
+            concurrencyLimiter.release(1_000);
+        return acquired;
+    }
+}
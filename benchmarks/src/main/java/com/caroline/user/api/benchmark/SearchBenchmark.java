@@ -0,0 +1,52 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.search.UserSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserSearchIndex query latency as the user count grows; scores should stay flat rather than scale with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final String[] NAMES = {"Valdir", "Luiz", "Ana", "Maria", "Joao", "Carla", "Pedro", "Beatriz"};
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    private UserSearchIndex index;
+
+    @Setup
+    public void setUp(){
+        index = new UserSearchIndex();
+        for (int i = 1; i <= users; i++) {
+            String name = NAMES[i % NAMES.length] + " " + Integer.toString(i, 36);
+            index.put(new UserDTO(i, name, "user" + i + "@email.com", 0L));
+        }
+    }
+
+    @Benchmark
+    public List<UserDTO> prefix(){
+        return index.search("user" + ThreadLocalRandom.current().nextInt(1, users + 1), 20);
+    }
+
+    @Benchmark
+    public List<UserDTO> commonPrefix(){
+        return index.search("maria", 20);
+    }
+
+    @Benchmark
+    public List<UserDTO> substring(){
+        return index.search(Integer.toString(ThreadLocalRandom.current().nextInt(1, users + 1), 36) + "@", 20);
+    }
+}
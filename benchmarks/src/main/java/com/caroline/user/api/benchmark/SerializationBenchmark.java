@@ -0,0 +1,42 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int rows;
+
+    private ObjectWriter writer;
+
+    private List<UserDTO> users;
+
+    @Setup
+    public void setUp(){
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, UserDTO.class));
+
+        users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++)
+            users.add(new UserDTO(i, "User " + i, "user" + i + "@email.com", 0L));
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return writer.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,74 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int SEEDED_USERS = 10_000;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private ConfigurableApplicationContext context;
+
+    private UserService service;
+
+    private List<Integer> ids;
+
+    @Setup
+    public void setUp(){
+        context = BenchmarkContexts.start();
+        service = context.getBean(UserService.class);
+
+        UserRepository repository = context.getBean(UserRepository.class);
+        List<User> users = new ArrayList<>(SEEDED_USERS);
+        for (int i = 0; i < SEEDED_USERS; i++)
+            users.add(new User(null, "User " + i, "user" + i + "@email.com", "123"));
+
+        ids = new ArrayList<>(SEEDED_USERS);
+        repository.saveAll(users).forEach(u -> ids.add(u.getId()));
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public User findById(){
+        return service.findById(randomId());
+    }
+
+    @Benchmark
+    public User create(){
+        int n = sequence.incrementAndGet();
+        return service.create(UserDTO.builder().name("New " + n).email("new" + n + "@email.com").password("123").build());
+    }
+
+    @Benchmark
+    public User update(){
+        int index = ThreadLocalRandom.current().nextInt(SEEDED_USERS);
+        return service.update(UserDTO.builder().id(ids.get(index)).name("Updated " + sequence.incrementAndGet())
+                .email("user" + index + "@email.com").password("123").build());
+    }
+
+    private Integer randomId(){
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
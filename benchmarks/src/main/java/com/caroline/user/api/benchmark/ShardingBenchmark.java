@@ -0,0 +1,108 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.service.UserService;
+import com.caroline.user.api.sharding.ShardContext;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The service over one database vs spread over {@code shards} embedded H2 shards, 100k users in total:
+ * lookups by id, pages inside one shard, pages that cross into the next shards (scatter-gather) and creates,
+ * which pay for the email directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ShardingBenchmark {
+
+    private static final int USERS = 100_000;
+
+    private static final int PAGE = 50;
+
+    @Param({"1", "3"})
+    private int shards;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService service;
+
+    private List<Integer> ids;
+
+    private List<Integer> crossingCursors;
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Setup
+    public void setUp(){
+        List<String> args = new ArrayList<>(List.of("--user.password.bcrypt.strength=4", "--user.compaction.enabled=false"));
+        if (shards > 1)
+            args.add("--user.sharding.urls=" + IntStream.range(1, shards)
+                    .mapToObj(shard -> "jdbc:h2:mem:bench-shard-" + shard
+                            + ";DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:shard-schema.sql'")
+                    .collect(Collectors.joining(",")));
+        context = BenchmarkContexts.start(args.toArray(new String[0]));
+        service = context.getBean(UserService.class);
+
+        UserRepository repository = context.getBean(UserRepository.class);
+        ids = new ArrayList<>(USERS);
+        for (int shard = 0; shard < shards; shard++) {
+            int first = shard * USERS / shards;
+            int last = (shard + 1) * USERS / shards;
+            ShardContext.run(shard, () -> {
+                List<User> chunk = new ArrayList<>(1000);
+                for (int i = first; i < last; i++) {
+                    chunk.add(new User(null, "User " + i, "shard" + i + "@email.com", "{noop}123"));
+                    if (chunk.size() == 1000 || i == last - 1) {
+                        repository.saveAll(chunk).forEach(user -> ids.add(user.getId()));
+                        chunk.clear();
+                    }
+                }
+            });
+        }
+        // the same positions for every shard count: half a page before where the 3-shard setup splits
+        crossingCursors = List.of(ids.get(USERS / 3 - 1 - PAGE / 2), ids.get(2 * USERS / 3 - 1 - PAGE / 2));
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public UserDTO findViewById(){
+        return service.findViewById(ids.get(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    @Benchmark
+    public List<UserDTO> pageWithinShard(){
+        return service.findPage(ids.get(ThreadLocalRandom.current().nextInt(USERS - PAGE)), PAGE);
+    }
+
+    /**
+     * Starts half a page before the end of a shard, so the rest comes from the following shards.
+     */
+    @Benchmark
+    public List<UserDTO> pageAcrossShards(){
+        return service.findPage(crossingCursors.get(ThreadLocalRandom.current().nextInt(crossingCursors.size())), PAGE);
+    }
+
+    @Benchmark
+    public User create(){
+        int n = created.incrementAndGet();
+        return service.create(UserDTO.builder().name("New " + n).email("new" + n + "@email.com").password("123").build());
+    }
+}
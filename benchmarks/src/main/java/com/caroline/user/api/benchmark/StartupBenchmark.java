@@ -0,0 +1,111 @@
+package com.caroline.user.api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from process start to the first successful {@code GET /user/1}, plus resident memory right after it,
+ * for a fresh process per iteration. "native" runs the image built by {@code ./mvnw -Pnative package}, passed
+ * as {@code -Dnative.image=../target/user-api}; it is not in the default parameter set. RSS is read from
+ * /proc and reported as 0 elsewhere.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"jvm", "fast-start"})
+    private String mode;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+    private Process process;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Memory {
+        public long rssKb;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() throws Exception {
+        if (process != null) {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+            process = null;
+        }
+    }
+
+    @Benchmark
+    public int timeToFirstRequest(Memory memory) throws Exception {
+        int port = freePort();
+        process = new ProcessBuilder(command(port)).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user/1")).GET().build();
+        while (true) {
+            if (!process.isAlive())
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200) {
+                    memory.rssKb = rssKb(process.pid());
+                    return status;
+                }
+            } catch (IOException notListeningYet) {
+                // retry below
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private List<String> command(int port){
+        List<String> command = new ArrayList<>();
+        if ("native".equals(mode)) {
+            command.add(System.getProperty("native.image", "../target/user-api"));
+        } else {
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("com.caroline.user.api.UserApiApplication");
+        }
+        command.add("--server.port=" + port);
+        command.add("--spring.main.banner-mode=off");
+        command.add("--user.ratelimit.enabled=false");
+        if ("fast-start".equals(mode))
+            command.add("--spring.profiles.active=local,fast-start");
+        return command;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long rssKb(long pid) throws IOException {
+        Path status = Paths.get("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status))
+            return 0;
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst().orElse(0L);
+    }
+}
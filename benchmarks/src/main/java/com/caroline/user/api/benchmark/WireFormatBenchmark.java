@@ -0,0 +1,96 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encode and decode cost of a {@code GET /user} page in each negotiable format, with and without the gzip
+ * response compression. The encoded size (bytes on the wire) is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private List<UserDTO> users;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = mapper(format);
+        CollectionType type = objectMapper.getTypeFactory().constructCollectionType(List.class, UserDTO.class);
+        writer = objectMapper.writerFor(type);
+        reader = objectMapper.readerFor(type);
+
+        users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++)
+            users.add(new UserDTO(i, "User " + i, "user" + i + "@email.com", 0L));
+        encoded = encode();
+        System.out.printf("%n%s gzip=%s rows=%d: %d bytes%n", format, gzip, rows, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            writer.writeValue(out, users);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<UserDTO> decode() throws IOException {
+        InputStream in = new ByteArrayInputStream(encoded);
+        if (gzip)
+            in = new GZIPInputStream(in);
+        try (InputStream body = in) {
+            return reader.readValue(body);
+        }
+    }
+
+    private static ObjectMapper mapper(String format){
+        switch (format) {
+            case "json":
+                return Jackson2ObjectMapperBuilder.json().build();
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile().build();
+            default:
+                throw new IllegalArgumentException(format);
+        }
+    }
+}
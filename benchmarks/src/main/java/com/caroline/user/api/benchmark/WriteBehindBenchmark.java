@@ -0,0 +1,83 @@
+package com.caroline.user.api.benchmark;
+
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursts of {@code PUT /user/{id}} from 64 clients on a few hot users, synchronous vs write-behind.
+ * With write-behind on, compare {@code user.write-behind.accepted} with {@code user.write-behind.written}
+ * (printed at teardown) to see how many database writes coalescing saved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+    private static final int HOT_USERS = 16;
+
+    @Param({"false", "true"})
+    private boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private List<Integer> ids;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContexts.startServer(
+                "--user.write-behind.enabled=" + writeBehind,
+                "--user.write-behind.journal-dir=" + Files.createTempDirectory("write-behind"),
+                "--user.ratelimit.enabled=false");
+
+        List<User> users = new ArrayList<>(HOT_USERS);
+        for (int i = 0; i < HOT_USERS; i++)
+            users.add(new User(null, "User " + i, "hot" + i + "@email.com", "{noop}123"));
+        ids = new ArrayList<>(HOT_USERS);
+        context.getBean(UserRepository.class).saveAll(users).forEach(u -> ids.add(u.getId()));
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + BenchmarkContexts.port(context) + "/user/";
+    }
+
+    @TearDown
+    public void tearDown(){
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        if (writeBehind)
+            System.out.printf("%naccepted=%.0f written=%.0f%n",
+                    registry.get("user.write-behind.accepted").counter().count(),
+                    registry.get("user.write-behind.written").counter().count());
+        context.close();
+    }
+
+    @Benchmark
+    public int update() throws Exception {
+        int index = ThreadLocalRandom.current().nextInt(HOT_USERS);
+        String json = "{\"name\":\"User " + System.nanoTime() + "\",\"email\":\"hot" + index + "@email.com\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ids.get(index)))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,151 @@
+package com.caroline.user.api.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Throughput, errors and the latency histogram of each scenario over the measured part of a run. Latencies
+ * are kept in microseconds and reported in milliseconds.
+ */
+public class LoadReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final double targetRate;
+
+    private final Duration duration;
+
+    private final long lagMillis;
+
+    private final Map<Scenario, Result> results = new EnumMap<>(Scenario.class);
+
+    private final Histogram overall = new Histogram(3);
+
+    public LoadReport(double targetRate, Duration duration, long lagMillis){
+        this.targetRate = targetRate;
+        this.duration = duration;
+        this.lagMillis = lagMillis;
+    }
+
+    void add(Scenario scenario, Histogram latency, long failed, long dropped){
+        results.put(scenario, new Result(latency, failed, dropped));
+        overall.add(latency);
+    }
+
+    public double getTargetRate(){
+        return targetRate;
+    }
+
+    /**
+     * How late the driver sent its last request. Anything but a few milliseconds means the machine running
+     * the driver, not the application, limited the rate, and the numbers are not comparable.
+     */
+    public long getLagMillis(){
+        return lagMillis;
+    }
+
+    /**
+     * Requests per second that got a response, of any status.
+     */
+    public double getThroughput(){
+        return overall.getTotalCount() / seconds();
+    }
+
+    public double getThroughput(Scenario scenario){
+        return result(scenario).latency.getTotalCount() / seconds();
+    }
+
+    /**
+     * Share of requests that failed, got an unexpected status or were never sent because too many were in flight.
+     */
+    public double getErrorRate(){
+        long requests = 0;
+        long errors = 0;
+        for (Result result : results.values()) {
+            requests += result.requests();
+            errors += result.errors();
+        }
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    public double getErrorRate(Scenario scenario){
+        Result result = result(scenario);
+        return result.requests() == 0 ? 0 : (double) result.errors() / result.requests();
+    }
+
+    public long getRequests(Scenario scenario){
+        return result(scenario).requests();
+    }
+
+    public double getPercentileMillis(Scenario scenario, double percentile){
+        return result(scenario).latency.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    public void print(PrintStream out){
+        out.printf("target %.0f req/s for %ss, achieved %.1f req/s, errors %.2f%%, driver lag %d ms%n",
+                targetRate, duration.toSeconds(), getThroughput(), getErrorRate() * 100, lagMillis);
+        out.printf("%-10s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "scenario", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        results.forEach((scenario, result) -> out.printf("%-10s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                scenario.getKey(), result.requests(), getThroughput(scenario), result.errors(),
+                getPercentileMillis(scenario, 50), getPercentileMillis(scenario, 90),
+                getPercentileMillis(scenario, 99), getPercentileMillis(scenario, 99.9),
+                result.latency.getMaxValue() / MICROS_PER_MILLI));
+    }
+
+    /**
+     * Writes {@code summary.txt} and one HdrHistogram percentile distribution per scenario, {@code <scenario>.hgrm},
+     * which the HdrHistogram plotter reads.
+     */
+    public void write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve("summary.txt")))) {
+            print(out);
+        }
+        for (Map.Entry<Scenario, Result> result : results.entrySet()) {
+            if (result.getValue().latency.getTotalCount() == 0)
+                continue;
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(result.getKey().getKey() + ".hgrm")))) {
+                result.getValue().latency.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private Result result(Scenario scenario){
+        return results.getOrDefault(scenario, new Result(new Histogram(3), 0, 0));
+    }
+
+    private double seconds(){
+        return duration.toMillis() / 1000.0;
+    }
+
+    private static final class Result {
+
+        private final Histogram latency;
+
+        private final long failed;
+
+        private final long dropped;
+
+        private Result(Histogram latency, long failed, long dropped){
+            this.latency = latency;
+            this.failed = failed;
+            this.dropped = dropped;
+        }
+
+        private long requests(){
+            return latency.getTotalCount() + dropped;
+        }
+
+        private long errors(){
+            return failed + dropped;
+        }
+    }
+}
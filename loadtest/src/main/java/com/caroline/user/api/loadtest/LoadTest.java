@@ -0,0 +1,43 @@
+package com.caroline.user.api.loadtest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the scenario suite once and prints the report, e.g.
+ * {@code LoadTest --users=100000 --rate=500 --duration=2m --mix=findById=80,findAll=20}. Exits with 1 when
+ * {@code --thresholds} names a file whose limits the run exceeded.
+ */
+public final class LoadTest {
+
+    private LoadTest(){
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        List<String> violations = run(LoadTestSettings.from(options::get));
+        violations.forEach(violation -> System.out.println("THRESHOLD EXCEEDED: " + violation));
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Boots and seeds the application, drives it, writes the report and returns the threshold violations.
+     */
+    public static List<String> run(LoadTestSettings settings) throws IOException, InterruptedException {
+        LoadReport report;
+        try (LoadTestServer server = LoadTestServer.start(settings)) {
+            report = new OpenLoopDriver(new Workload(server, settings), settings).run();
+        }
+        report.print(System.out);
+        if (settings.getReportDir() != null)
+            report.write(settings.getReportDir());
+        return settings.getThresholds() == null ? List.of() : Thresholds.load(settings.getThresholds()).check(report);
+    }
+}
@@ -0,0 +1,75 @@
+package com.caroline.user.api.loadtest;
+
+import com.caroline.user.api.UserApiApplication;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.password.PasswordHasher;
+import com.caroline.user.api.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application on a random port with {@code users} users seeded straight through the repository, named
+ * {@code load<n>@email.com}. All of them share one password hash, so seeding a large table stays fast.
+ */
+public class LoadTestServer implements AutoCloseable {
+
+    private static final int SEED_CHUNK = 1000;
+
+    private final ConfigurableApplicationContext context;
+
+    private final List<Integer> ids;
+
+    private LoadTestServer(ConfigurableApplicationContext context, List<Integer> ids){
+        this.context = context;
+        this.ids = ids;
+    }
+
+    public static LoadTestServer start(LoadTestSettings settings, String... args){
+        SpringApplication application = new SpringApplication(UserApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.SERVLET);
+        application.setLogStartupInfo(false);
+
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0", "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN", "--user.ratelimit.enabled=false",
+                "--user.password.bcrypt.strength=" + settings.getBcryptStrength()));
+        arguments.addAll(List.of(args));
+        ConfigurableApplicationContext context = application.run(arguments.toArray(new String[0]));
+
+        String password = context.getBean(PasswordHasher.class).hash("123");
+        UserRepository repository = context.getBean(UserRepository.class);
+        List<Integer> ids = new ArrayList<>(settings.getUsers());
+        List<User> chunk = new ArrayList<>(SEED_CHUNK);
+        for (int i = 0; i < settings.getUsers(); i++) {
+            chunk.add(new User(null, "Load " + i, email(i), password));
+            if (chunk.size() == SEED_CHUNK || i == settings.getUsers() - 1) {
+                repository.saveAll(chunk).forEach(user -> ids.add(user.getId()));
+                chunk.clear();
+            }
+        }
+        return new LoadTestServer(context, ids);
+    }
+
+    public static String email(int index){
+        return "load" + index + "@email.com";
+    }
+
+    public String getBaseUrl(){
+        return "http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port") + "/user";
+    }
+
+    /**
+     * Ids of the seeded users, in seeding order: the user at index {@code n} has {@link #email(int) email(n)}.
+     */
+    public List<Integer> getIds(){
+        return ids;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,104 @@
+package com.caroline.user.api.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * What to load the application with and for how long. Every setting has a default, so a run can override
+ * only the ones it cares about.
+ */
+@Value
+@Builder
+public class LoadTestSettings {
+
+    /**
+     * Users seeded before the run.
+     */
+    int users;
+
+    /**
+     * Requests started per second, whatever the response times: the arrival rate does not slow down
+     * when the application does.
+     */
+    double rate;
+
+    Duration warmup;
+
+    Duration duration;
+
+    Map<Scenario, Integer> mix;
+
+    /**
+     * Share of the seeded users that {@link Scenario#FIND_BY_ID} mostly asks for, and how often it does.
+     */
+    double hotSet;
+
+    double hotRatio;
+
+    /**
+     * Share of {@link Scenario#CREATE} requests that reuse a registered email and must be rejected.
+     */
+    double conflictRatio;
+
+    /**
+     * Requests allowed in flight at once; beyond that a request counts as an error instead of being sent.
+     */
+    int maxInFlight;
+
+    /**
+     * Strength of the bcrypt hashes written by creates and updates. Kept low so the run measures the web and
+     * data path; PasswordWriteBenchmark measures hashing.
+     */
+    int bcryptStrength;
+
+    Path thresholds;
+
+    Path reportDir;
+
+    /**
+     * Reads each setting through {@code lookup} by its kebab-case name, e.g. {@code max-in-flight}.
+     */
+    public static LoadTestSettings from(Function<String, String> lookup){
+        return LoadTestSettings.builder()
+                .users(Integer.parseInt(get(lookup, "users", "10000")))
+                .rate(Double.parseDouble(get(lookup, "rate", "100")))
+                .warmup(DurationStyle.detectAndParse(get(lookup, "warmup", "10s")))
+                .duration(DurationStyle.detectAndParse(get(lookup, "duration", "30s")))
+                .mix(mix(get(lookup, "mix", "findById=60,findAll=15,create=10,update=10,delete=5")))
+                .hotSet(Double.parseDouble(get(lookup, "hot-set", "0.01")))
+                .hotRatio(Double.parseDouble(get(lookup, "hot-ratio", "0.9")))
+                .conflictRatio(Double.parseDouble(get(lookup, "conflict-ratio", "0.2")))
+                .maxInFlight(Integer.parseInt(get(lookup, "max-in-flight", "512")))
+                .bcryptStrength(Integer.parseInt(get(lookup, "bcrypt-strength", "4")))
+                .thresholds(path(lookup.apply("thresholds")))
+                .reportDir(path(get(lookup, "report-dir", "target/loadtest")))
+                .build();
+    }
+
+    private static String get(Function<String, String> lookup, String name, String defaultValue){
+        String value = lookup.apply(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    private static Path path(String value){
+        return value == null || value.isBlank() ? null : Path.of(value);
+    }
+
+    private static Map<Scenario, Integer> mix(String value){
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String entry : value.split(",")) {
+            String[] weight = entry.trim().split("=");
+            if (weight.length != 2)
+                throw new IllegalArgumentException("Expected scenario=weight, got: " + entry);
+            mix.put(Scenario.of(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+}
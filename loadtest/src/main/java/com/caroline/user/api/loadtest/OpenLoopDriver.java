@@ -0,0 +1,93 @@
+package com.caroline.user.api.loadtest;
+
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests on a fixed schedule, {@code rate} per second, without waiting for earlier responses: a slow
+ * application gets more concurrent requests rather than fewer, as it would from real clients. Latency is
+ * measured from when a request was due, not from when it was sent, so time spent queued behind a stall
+ * counts too instead of being hidden by the schedule slipping (coordinated omission).
+ */
+public class OpenLoopDriver {
+
+    /**
+     * Latencies are recorded in microseconds, up to this many.
+     */
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final Workload workload;
+
+    private final LoadTestSettings settings;
+
+    public OpenLoopDriver(Workload workload, LoadTestSettings settings){
+        this.workload = workload;
+        this.settings = settings;
+    }
+
+    /**
+     * Runs the warmup and then the measured duration; only requests due in the measured part are reported.
+     */
+    public LoadReport run() throws InterruptedException {
+        Map<Scenario, Recorder> latencies = new EnumMap<>(Scenario.class);
+        Map<Scenario, LongAdder> failed = new EnumMap<>(Scenario.class);
+        Map<Scenario, LongAdder> dropped = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : Scenario.values()) {
+            latencies.put(scenario, new Recorder(MAX_LATENCY_MICROS, 3));
+            failed.put(scenario, new LongAdder());
+            dropped.put(scenario, new LongAdder());
+        }
+        Semaphore inFlight = new Semaphore(settings.getMaxInFlight());
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / settings.getRate());
+        long start = System.nanoTime();
+        long measureFrom = start + settings.getWarmup().toNanos();
+        long end = measureFrom + settings.getDuration().toNanos();
+
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            Workload.Call call = workload.next();
+            boolean measured = due >= measureFrom;
+            if (!inFlight.tryAcquire()) {
+                if (measured)
+                    dropped.get(call.getScenario()).increment();
+                continue;
+            }
+            long dueAt = due;
+            client.sendAsync(call.getRequest(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueAt);
+                        boolean succeeded = failure == null && call.accept(response);
+                        if (measured) {
+                            latencies.get(call.getScenario()).recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+                            if (!succeeded)
+                                failed.get(call.getScenario()).increment();
+                        }
+                        inFlight.release();
+                    });
+        }
+        // how far behind schedule the last request went out: a driver that cannot keep up invalidates the run
+        long lag = Math.max(0, System.nanoTime() - end);
+        inFlight.acquire(settings.getMaxInFlight());
+
+        LoadReport report = new LoadReport(settings.getRate(), settings.getDuration(), TimeUnit.NANOSECONDS.toMillis(lag));
+        latencies.forEach((scenario, recorder) -> report.add(scenario, recorder.getIntervalHistogram(),
+                failed.get(scenario).sum(), dropped.get(scenario).sum()));
+        return report;
+    }
+}
@@ -0,0 +1,30 @@
+package com.caroline.user.api.loadtest;
+
+import java.util.Arrays;
+
+public enum Scenario {
+
+    FIND_BY_ID("findById"),
+    FIND_ALL("findAll"),
+    CREATE("create"),
+    UPDATE("update"),
+    DELETE("delete");
+
+    private final String key;
+
+    Scenario(String key){
+        this.key = key;
+    }
+
+    /**
+     * The name used in settings, thresholds and reports.
+     */
+    public String getKey(){
+        return key;
+    }
+
+    public static Scenario of(String key){
+        return Arrays.stream(values()).filter(scenario -> scenario.key.equals(key)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scenario: " + key));
+    }
+}
@@ -0,0 +1,81 @@
+package com.caroline.user.api.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Limits a run must stay within, read from a properties file. Missing keys are not checked.
+ * <ul>
+ *     <li>{@code error-rate}: highest share of requests that may fail, answer unexpectedly or be dropped</li>
+ *     <li>{@code throughput-ratio}: lowest share of the target rate that must get responses</li>
+ *     <li>{@code driver-lag-ms}: how far the driver itself may fall behind its schedule</li>
+ *     <li>{@code <scenario>.p<percentile>}: highest latency of a scenario at a percentile, in milliseconds,
+ *     e.g. {@code findById.p99=50} or {@code findAll.p99.9=200}</li>
+ * </ul>
+ */
+public class Thresholds {
+
+    private final Properties limits;
+
+    public Thresholds(Properties limits){
+        this.limits = limits;
+    }
+
+    public static Thresholds load(Path file) throws IOException {
+        Properties limits = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            limits.load(reader);
+        }
+        return new Thresholds(limits);
+    }
+
+    /**
+     * Every limit the report exceeds, described for the build log; empty if it passed.
+     */
+    public List<String> check(LoadReport report){
+        List<String> violations = new ArrayList<>();
+        for (String key : new TreeSet<>(limits.stringPropertyNames())) {
+            double limit = Double.parseDouble(limits.getProperty(key).trim());
+            switch (key) {
+                case "error-rate":
+                    if (report.getErrorRate() > limit)
+                        violations.add(String.format("error rate %.4f above %s", report.getErrorRate(), limit));
+                    break;
+                case "throughput-ratio":
+                    double ratio = report.getThroughput() / report.getTargetRate();
+                    if (ratio < limit)
+                        violations.add(String.format("throughput %.1f req/s is %.2f of the target, below %s",
+                                report.getThroughput(), ratio, limit));
+                    break;
+                case "driver-lag-ms":
+                    if (report.getLagMillis() > limit)
+                        violations.add(String.format("driver fell %d ms behind schedule, above %s",
+                                report.getLagMillis(), limit));
+                    break;
+                default:
+                    checkPercentile(report, key, limit, violations);
+            }
+        }
+        return violations;
+    }
+
+    private static void checkPercentile(LoadReport report, String key, double limit, List<String> violations){
+        int separator = key.indexOf(".p");
+        if (separator < 0)
+            throw new IllegalArgumentException("Unknown threshold: " + key);
+        Scenario scenario = Scenario.of(key.substring(0, separator));
+        double percentile = Double.parseDouble(key.substring(separator + 2));
+        if (report.getRequests(scenario) == 0)
+            return;
+        double actual = report.getPercentileMillis(scenario, percentile);
+        if (actual > limit)
+            violations.add(String.format("%s p%s %.2f ms above %s ms", scenario.getKey(),
+                    key.substring(separator + 2), actual, limit));
+    }
+}
@@ -0,0 +1,162 @@
+package com.caroline.user.api.loadtest;
+
+import com.caroline.user.api.controller.PageCursor;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Turns a scenario into the next request to send and the status it must answer with. The seeded users are
+ * split in two: reads, updates and conflicting creates use the first 90%, deletes consume users created
+ * during the run and then the last 10%, so no request races a delete of its own user.
+ */
+public class Workload {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int PAGE_SIZE = 50;
+
+    private final String baseUrl;
+
+    private final List<Integer> ids;
+
+    private final int readable;
+
+    private final int hot;
+
+    private final LoadTestSettings settings;
+
+    private final Scenario[] weighted;
+
+    private final Queue<Integer> created = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger nextDeletable;
+
+    private final AtomicInteger nextNew = new AtomicInteger();
+
+    public Workload(LoadTestServer server, LoadTestSettings settings){
+        this.baseUrl = server.getBaseUrl();
+        this.ids = server.getIds();
+        if (ids.isEmpty())
+            throw new IllegalArgumentException("The load test needs seeded users");
+        this.readable = Math.max(1, ids.size() * 9 / 10);
+        this.hot = Math.max(1, (int) (readable * settings.getHotSet()));
+        this.settings = settings;
+        this.nextDeletable = new AtomicInteger(readable);
+        this.weighted = settings.getMix().entrySet().stream()
+                .flatMap(weight -> Collections.nCopies(weight.getValue(), weight.getKey()).stream())
+                .toArray(Scenario[]::new);
+        if (weighted.length == 0)
+            throw new IllegalArgumentException("The scenario mix is empty");
+    }
+
+    public Call next(){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (weighted[random.nextInt(weighted.length)]) {
+            case FIND_BY_ID:
+                int index = random.nextDouble() < settings.getHotRatio() ? random.nextInt(hot) : random.nextInt(readable);
+                return new Call(Scenario.FIND_BY_ID, get("/" + ids.get(index)), 200, null);
+            case FIND_ALL:
+                String cursor = PageCursor.encode(ids.get(random.nextInt(readable)));
+                return new Call(Scenario.FIND_ALL, get("?size=" + PAGE_SIZE + "&cursor=" + cursor), 200, null);
+            case CREATE:
+                return create(random);
+            case UPDATE:
+                int updated = random.nextInt(readable);
+                return new Call(Scenario.UPDATE, send("PUT", "/" + ids.get(updated),
+                        body("Load " + updated + " updated", LoadTestServer.email(updated))), 200, null);
+            case DELETE:
+                return delete();
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    private Call create(ThreadLocalRandom random){
+        if (random.nextDouble() < settings.getConflictRatio()) {
+            String taken = LoadTestServer.email(random.nextInt(readable));
+            return new Call(Scenario.CREATE, send("POST", "", body("Conflict", taken)), 400, null);
+        }
+        int n = nextNew.incrementAndGet();
+        return new Call(Scenario.CREATE, send("POST", "", body("New " + n, "new" + n + "@loadtest.com")), 201,
+                response -> response.headers().firstValue("Location")
+                        .ifPresent(location -> created.add(Integer.valueOf(location.substring(location.lastIndexOf('/') + 1)))));
+    }
+
+    private Call delete(){
+        Integer id = created.poll();
+        if (id == null) {
+            int index = nextDeletable.getAndIncrement();
+            // out of users to delete: ids start at 1, so deleting 0 must answer 404 and still exercises the path
+            if (index >= ids.size())
+                return new Call(Scenario.DELETE, send("DELETE", "/0", null), 404, null);
+            id = ids.get(index);
+        }
+        return new Call(Scenario.DELETE, send("DELETE", "/" + id, null), 204, null);
+    }
+
+    private HttpRequest get(String path){
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String body){
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (body == null)
+            return request.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return request.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static String body(String name, String email){
+        return "{\"name\":\"" + name + "\",\"email\":\"" + email + "\",\"password\":\"123\"}";
+    }
+
+    /**
+     * One request of a scenario, the status that counts as success, and what to do with a successful response.
+     */
+    public static final class Call {
+
+        private final Scenario scenario;
+
+        private final HttpRequest request;
+
+        private final int expectedStatus;
+
+        private final Consumer<HttpResponse<Void>> onSuccess;
+
+        Call(Scenario scenario, HttpRequest request, int expectedStatus, Consumer<HttpResponse<Void>> onSuccess){
+            this.scenario = scenario;
+            this.request = request;
+            this.expectedStatus = expectedStatus;
+            this.onSuccess = onSuccess;
+        }
+
+        public Scenario getScenario(){
+            return scenario;
+        }
+
+        public HttpRequest getRequest(){
+            return request;
+        }
+
+        /**
+         * Whether {@code response} is the one the scenario expects, after running its success hook.
+         */
+        public boolean accept(HttpResponse<Void> response){
+            if (response.statusCode() != expectedStatus)
+                return false;
+            if (onSuccess != null)
+                onSuccess.accept(response);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.caroline.user.api.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the scenario suite with the {@code loadtest.*} settings from the pom, so {@code mvn test} fails when
+ * a change pushes the application past {@code thresholds.properties}.
+ */
+class LoadRegressionTest {
+
+    @Test
+    void whenDrivenAtTheTargetRateShouldStayWithinThresholds() throws Exception {
+
+        LoadTestSettings settings = LoadTestSettings.from(name -> System.getProperty("loadtest." + name));
+
+        List<String> violations = LoadTest.run(settings);
+
+        assertTrue(violations.isEmpty(), () -> "Thresholds exceeded:\n" + String.join("\n", violations));
+    }
+}
@@ -0,0 +1,55 @@
+package com.caroline.user.api.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThresholdsTest {
+
+    @Test
+    void whenWithinLimitsShouldPass() {
+
+        assertEquals(List.of(), thresholds("findById.p99", "20", "error-rate", "0.01").check(report(10, 0)));
+    }
+
+    @Test
+    void whenLatencyOrErrorsExceedLimitsShouldReportEach() {
+
+        List<String> violations = thresholds("findById.p99", "5", "findById.p99.9", "50", "error-rate", "0.01",
+                "throughput-ratio", "1.5").check(report(10, 5));
+
+        assertEquals(3, violations.size());
+        assertTrue(violations.stream().anyMatch(violation -> violation.startsWith("findById p99 ")));
+        assertTrue(violations.stream().anyMatch(violation -> violation.startsWith("error rate")));
+        assertTrue(violations.stream().anyMatch(violation -> violation.startsWith("throughput")));
+    }
+
+    @Test
+    void whenThresholdIsUnknownShouldFail() {
+
+        assertThrows(IllegalArgumentException.class, () -> thresholds("p99", "5").check(report(10, 0)));
+    }
+
+    /**
+     * 100 requests/s over 1s for findById, each taking {@code millis}, {@code failed} of them with an error.
+     */
+    private LoadReport report(int millis, int failed) {
+        Histogram latency = new Histogram(3);
+        latency.recordValueWithCount(millis * 1000L, 100);
+        LoadReport report = new LoadReport(100, Duration.ofSeconds(1), 0);
+        report.add(Scenario.FIND_BY_ID, latency, failed, 0);
+        return report;
+    }
+
+    private Thresholds thresholds(String... limits) {
+        Properties properties = new Properties();
+        for (int i = 0; i < limits.length; i += 2)
+            properties.setProperty(limits[i], limits[i + 1]);
+        return new Thresholds(properties);
+    }
+}
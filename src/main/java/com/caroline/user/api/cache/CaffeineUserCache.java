@@ -0,0 +1,77 @@
+package com.caroline.user.api.cache;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded in-process cache of user read views by id. Evictions are stamped into a fixed array of slots
+ * indexed by id, so a read-through fill can detect an eviction that happened while it was reading; ids
+ * sharing a slot only cost a skipped fill.
+ */
+public class CaffeineUserCache implements UserCache {
+
+    private static final int EVICTION_SLOTS = 4096;
+
+    private final Cache<Integer, UserDTO> byId;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicLongArray evictedAt = new AtomicLongArray(EVICTION_SLOTS);
+
+    public CaffeineUserCache(long maximumSize, Duration expireAfterWrite){
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public void bindTo(MeterRegistry registry){
+        CaffeineCacheMetrics.monitor(registry, byId, "users.byId");
+    }
+
+    @Override
+    public Optional<UserDTO> findById(Integer id) {
+        return Optional.ofNullable(byId.getIfPresent(id));
+    }
+
+    @Override
+    public void put(UserDTO user) {
+        byId.asMap().compute(user.getId(), (id, current) -> isNewer(current, user) ? current : user);
+    }
+
+    @Override
+    public void evict(Integer id) {
+        // stamp before invalidating: a fill holding the entry lock either sees the stamp or is invalidated after
+        evictedAt.set(slot(id), clock.incrementAndGet());
+        byId.invalidate(id);
+    }
+
+    @Override
+    public long readStamp() {
+        return clock.get();
+    }
+
+    @Override
+    public void putLoaded(UserDTO user, long readStamp) {
+        byId.asMap().compute(user.getId(), (id, current) ->
+                evictedAt.get(slot(id)) > readStamp || isNewer(current, user) ? current : user);
+    }
+
+    private static int slot(Integer id){
+        return id & (EVICTION_SLOTS - 1);
+    }
+
+    private static boolean isNewer(UserDTO current, UserDTO candidate){
+        return current != null && current.getVersion() != null && candidate.getVersion() != null
+                && current.getVersion() > candidate.getVersion();
+    }
+}
@@ -0,0 +1,30 @@
+package com.caroline.user.api.cache;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+
+import java.util.Optional;
+
+public class NoOpUserCache implements UserCache {
+
+    @Override
+    public Optional<UserDTO> findById(Integer id) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(UserDTO user) {
+    }
+
+    @Override
+    public void evict(Integer id) {
+    }
+
+    @Override
+    public long readStamp() {
+        return 0;
+    }
+
+    @Override
+    public void putLoaded(UserDTO user, long readStamp) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.caroline.user.api.cache;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+
+import java.util.Optional;
+
+public interface UserCache {
+
+    Optional<UserDTO> findById(Integer id);
+
+    /**
+     * Caches a committed view, unless a newer version of the user is cached already.
+     */
+    void put(UserDTO user);
+
+    void evict(Integer id);
+
+    /**
+     * Taken before reading a user from the database, so that {@link #putLoaded} can tell whether the user was
+     * changed or deleted while it was being read.
+     */
+    long readStamp();
+
+    /**
+     * Read-through fill: like {@link #put}, but skipped if the user was evicted after {@code readStamp} was taken,
+     * since the view read may then be of an older version or of a user that no longer exists.
+     */
+    void putLoaded(UserDTO user, long readStamp);
+}
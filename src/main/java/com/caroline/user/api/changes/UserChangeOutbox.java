@@ -0,0 +1,38 @@
+package com.caroline.user.api.changes;
+
+import com.caroline.user.api.invalidation.UserChangedEvent;
+import com.caroline.user.api.model.entity.UserChange;
+import com.caroline.user.api.repository.UserChangeRepository;
+import org.springframework.context.event.EventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every {@link UserChangedEvent} as {@link UserChange} rows. The listener runs synchronously inside
+ * the service's transaction, so the rows commit or roll back together with the write itself.
+ */
+public class UserChangeOutbox {
+
+    private final UserChangeRepository repository;
+
+    public UserChangeOutbox(UserChangeRepository repository){
+        this.repository = repository;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event){
+        if (event.getChanged().isEmpty() && event.getDeleted().isEmpty())
+            return;
+
+        Instant now = Instant.now();
+        List<UserChange> rows = new ArrayList<>(event.getChanged().size() + event.getDeleted().size());
+        event.getChanged().forEach(view -> rows.add(UserChange.builder().type(UserChange.Type.CHANGED)
+                .userId(view.getId()).name(view.getName()).email(view.getEmail()).version(view.getVersion())
+                .changedAt(now).build()));
+        event.getDeleted().forEach(id -> rows.add(UserChange.builder().type(UserChange.Type.DELETED)
+                .userId(id).version(event.getDeletedVersions().get(id)).changedAt(now).build()));
+        repository.saveAll(rows);
+    }
+}
@@ -0,0 +1,238 @@
+package com.caroline.user.api.changes;
+
+import com.caroline.user.api.exception.GoneException;
+import com.caroline.user.api.invalidation.UserChangedEvent;
+import com.caroline.user.api.model.DTO.UserChangeDTO;
+import com.caroline.user.api.model.entity.UserChange;
+import com.caroline.user.api.repository.UserChangeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Turns committed outbox rows into the change feed. Outbox ids are allocated before commit, so they do not
+ * follow commit order; the relay instead numbers rows in batches after they committed, continuing from the
+ * highest sequence in the table. Within a batch, each user's changes are numbered in version order, since
+ * ids come from per-node blocks and a later change of a user may well have the lower id. Sequences are therefore gapless and a consumer reading {@code since} its
+ * last sequence never skips a change. The unique index on the sequence makes a concurrent relay on another
+ * node fail its batch and retry rather than reuse numbers.
+ * <p>
+ * The relay runs after every local commit and every {@code pollInterval} (to pick up other nodes' writes),
+ * wakes long-polling consumers, and drops rows older than {@code retention}, always keeping the newest.
+ */
+@Slf4j
+public class UserChangeRelay {
+
+    private static final Duration PRUNE_INTERVAL = Duration.ofMinutes(1);
+
+    // deletions recorded before tombstones carried versions have none, and were a user's last change
+    private static final Comparator<UserChange> BY_VERSION = Comparator
+            .comparing(UserChange::getVersion, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(UserChange::getId);
+
+    private final UserChangeRepository repository;
+
+    private final TransactionTemplate transactions;
+
+    private final int batchSize;
+
+    private final Duration pollInterval;
+
+    private final Duration retention;
+
+    private final ScheduledExecutorService relay = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "user-change-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean nudged = new AtomicBoolean();
+
+    private final Map<CompletableFuture<Long>, Long> waiters = new ConcurrentHashMap<>();
+
+    private volatile long published;
+
+    private Instant nextPrune = Instant.MIN;
+
+    private final Counter relayed;
+
+    private final Timer lag;
+
+    public UserChangeRelay(UserChangeRepository repository, PlatformTransactionManager transactionManager,
+                           int batchSize, Duration pollInterval, Duration retention, MeterRegistry registry){
+        this.repository = repository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+        this.relayed = registry.counter("user.changes.relayed");
+        this.lag = registry.timer("user.changes.lag");
+        Gauge.builder("user.changes.waiters", waiters, Map::size).register(registry);
+        Gauge.builder("user.changes.sequence", this, UserChangeRelay::getPublished).register(registry);
+    }
+
+    public void start(){
+        published = repository.findMaxSequence().orElse(0L);
+        long interval = pollInterval.toMillis();
+        relay.scheduleWithFixedDelay(this::relayQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop(){
+        relay.shutdown();
+        try {
+            relay.awaitTermination(pollInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        waiters.keySet().forEach(waiter -> waiter.complete(published));
+    }
+
+    public long getPublished(){
+        return published;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event){
+        if (nudged.compareAndSet(false, true)) {
+            relay.execute(() -> {
+                nudged.set(false);
+                relayQuietly();
+            });
+        }
+    }
+
+    /**
+     * Completes with the highest published sequence once it is past {@code since}, or when {@code timeout}
+     * elapses, whichever comes first.
+     */
+    public CompletableFuture<Long> awaitAfter(long since, Duration timeout){
+        long current = published;
+        if (current > since || timeout.isZero())
+            return CompletableFuture.completedFuture(current);
+
+        CompletableFuture<Long> waiter = new CompletableFuture<>();
+        waiters.put(waiter, since);
+        waiter.whenComplete((sequence, ex) -> waiters.remove(waiter));
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> waiter.complete(published));
+        if (published > since)
+            waiter.complete(published);
+        return waiter;
+    }
+
+    /**
+     * Up to {@code size} changes after {@code since}, oldest first.
+     *
+     * @throws GoneException if changes right after {@code since} were already dropped by retention
+     */
+    public List<UserChangeDTO> findAfter(long since, int size){
+        List<UserChangeDTO> changes = repository.findViewsBySequenceGreaterThan(since, PageRequest.of(0, size));
+        if (!changes.isEmpty() && changes.get(0).getSequence() > since + 1)
+            throw new GoneException("Changes after " + since + " are no longer retained, resynchronize from /user/export");
+        return changes;
+    }
+
+    void relayQuietly(){
+        try {
+            int count;
+            do {
+                count = relayBatch();
+            } while (count >= batchSize);
+            pruneIfDue();
+        } catch (RuntimeException ex) {
+            log.warn("Relaying user changes failed, retrying in {}", pollInterval, ex);
+        }
+    }
+
+    private int relayBatch(){
+        List<UserChange> batch = new ArrayList<>(batchSize);
+        Long highest = transactions.execute(status -> {
+            long sequence = repository.findMaxSequence().orElse(0L);
+            List<UserChange> pending = repository.findBySequenceIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+            for (UserChange change : inVersionOrder(pending)) {
+                change.setSequence(++sequence);
+                batch.add(change);
+            }
+            return sequence;
+        });
+
+        if (!batch.isEmpty()) {
+            relayed.increment(batch.size());
+            lag.record(Duration.between(batch.get(0).getChangedAt(), Instant.now()));
+        }
+        if (highest != null && highest > published)
+            publish(highest);
+        return batch.size();
+    }
+
+    /**
+     * Adds the pending changes of the batch's users that fell past the batch, then gives each user's changes
+     * the slots they took in id order, sorted by version. A user's versions commit in order, so a change
+     * missing here cannot be older than the ones present.
+     */
+    private List<UserChange> inVersionOrder(List<UserChange> batch){
+        if (batch.isEmpty())
+            return batch;
+        Map<Long, UserChange> changes = new LinkedHashMap<>();
+        batch.forEach(change -> changes.put(change.getId(), change));
+        Set<Integer> users = batch.stream().map(UserChange::getUserId).collect(Collectors.toSet());
+        repository.findBySequenceIsNullAndUserIdIn(users).stream()
+                .sorted(Comparator.comparing(UserChange::getId))
+                .forEach(change -> changes.putIfAbsent(change.getId(), change));
+
+        List<UserChange> byId = new ArrayList<>(changes.values());
+        Map<Integer, List<Integer>> slots = new HashMap<>();
+        for (int i = 0; i < byId.size(); i++)
+            slots.computeIfAbsent(byId.get(i).getUserId(), user -> new ArrayList<>()).add(i);
+
+        List<UserChange> ordered = new ArrayList<>(byId);
+        slots.values().forEach(positions -> {
+            List<UserChange> own = positions.stream().map(byId::get).sorted(BY_VERSION).collect(Collectors.toList());
+            for (int i = 0; i < positions.size(); i++)
+                ordered.set(positions.get(i), own.get(i));
+        });
+        return ordered;
+    }
+
+    private void publish(long sequence){
+        published = sequence;
+        waiters.forEach((waiter, since) -> {
+            if (sequence > since)
+                waiter.complete(sequence);
+        });
+    }
+
+    private void pruneIfDue(){
+        Instant now = Instant.now();
+        if (now.isBefore(nextPrune))
+            return;
+        nextPrune = now.plus(PRUNE_INTERVAL);
+        long newest = published;
+        Integer deleted = transactions.execute(status -> repository.deletePublished(newest, now.minus(retention)));
+        if (deleted != null && deleted > 0)
+            log.debug("Dropped {} user changes older than {}", deleted, retention);
+    }
+}
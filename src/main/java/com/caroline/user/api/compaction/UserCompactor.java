@@ -0,0 +1,125 @@
+package com.caroline.user.api.compaction;
+
+import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.sharding.ShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purges user tombstones in the background. Every {@code interval} it walks the table in primary key order
+ * and deletes tombstones older than {@code grace}, {@code batchSize} rows per transaction, pausing between
+ * batches so it never removes more than {@code rate} rows per second. Short transactions and a bounded rate keep its locks and I/O from
+ * competing with live traffic, however large a deactivation campaign was. With sharding the shards are
+ * compacted one after the other, under the same rate.
+ */
+@Slf4j
+public class UserCompactor {
+
+    private final UserRepository repository;
+
+    private final TransactionTemplate transactions;
+
+    private final int batchSize;
+
+    private final double rate;
+
+    private final Duration interval;
+
+    private final Duration grace;
+
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "user-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter purged;
+
+    private int shards = 1;
+
+    public UserCompactor(UserRepository repository, PlatformTransactionManager transactionManager, int batchSize,
+                         double rate, Duration interval, Duration grace, MeterRegistry registry){
+        this.repository = repository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.rate = rate;
+        this.interval = interval;
+        this.grace = grace;
+        this.purged = registry.counter("user.compaction.purged");
+    }
+
+    public void setShards(int shards){
+        this.shards = shards;
+    }
+
+    public void start(){
+        long millis = interval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop(){
+        compactor.shutdownNow();
+    }
+
+    /**
+     * Purges every tombstone older than the grace period, throttled; returns how many rows were removed.
+     */
+    public int compact() throws InterruptedException {
+        Instant before = Instant.now().minus(grace);
+        int total = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            try (ShardContext.Scope scope = ShardContext.enter(shard)) {
+                total += compact(before);
+            }
+        }
+        return total;
+    }
+
+    private int compact(Instant before) throws InterruptedException {
+        long nanosPerRow = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        int total = 0;
+        int after = 0;
+        List<Integer> ids;
+        do {
+            long started = System.nanoTime();
+            int from = after;
+            ids = transactions.execute(status -> {
+                List<Integer> batch = repository.findTombstoneIds(from, before, batchSize);
+                if (!batch.isEmpty())
+                    repository.purgeTombstones(batch);
+                return batch;
+            });
+            if (ids == null || ids.isEmpty())
+                break;
+            after = ids.get(ids.size() - 1);
+            total += ids.size();
+            purged.increment(ids.size());
+            long pause = ids.size() * nanosPerRow - (System.nanoTime() - started);
+            if (ids.size() == batchSize && pause > 0)
+                TimeUnit.NANOSECONDS.sleep(pause);
+        } while (ids.size() == batchSize);
+        return total;
+    }
+
+    private void compactQuietly(){
+        try {
+            int total = compact();
+            if (total > 0)
+                log.debug("Purged {} user tombstones", total);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.warn("Purging user tombstones failed, retrying in {}", interval, ex);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.cache.CaffeineUserCache;
+import com.caroline.user.api.cache.NoOpUserCache;
+import com.caroline.user.api.cache.UserCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(value = "user.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public UserCache userCache(@Value("${user.cache.maximum-size:10000}") long maximumSize,
+                               @Value("${user.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                               MeterRegistry registry){
+        CaffeineUserCache cache = new CaffeineUserCache(maximumSize, expireAfterWrite);
+        cache.bindTo(registry);
+        return cache;
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "user.cache.enabled", havingValue = "false")
+    public UserCache noOpUserCache(){
+        return new NoOpUserCache();
+    }
+}
@@ -0,0 +1,58 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.changes.UserChangeOutbox;
+import com.caroline.user.api.changes.UserChangeRelay;
+import com.caroline.user.api.repository.UserChangeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(value = "user.changes.enabled", havingValue = "true", matchIfMissing = true)
+@Conditional(ChangesConfig.NotSharded.class)
+public class ChangesConfig {
+
+    /**
+     * Changes committed before the first consumer arrives still have to be relayed.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerChangeRelay(){
+        return LazyInitializationExcludeFilter.forBeanTypes(UserChangeRelay.class);
+    }
+
+    @Bean
+    public UserChangeOutbox userChangeOutbox(UserChangeRepository repository){
+        return new UserChangeOutbox(repository);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public UserChangeRelay userChangeRelay(UserChangeRepository repository, PlatformTransactionManager transactionManager,
+                                           @Value("${user.changes.batch-size:500}") int batchSize,
+                                           @Value("${user.changes.poll-interval:1s}") Duration pollInterval,
+                                           @Value("${user.changes.retention:7d}") Duration retention,
+                                           MeterRegistry registry){
+        return new UserChangeRelay(repository, transactionManager, batchSize, pollInterval, retention, registry);
+    }
+
+    /**
+     * The relay reads a single database, so sharded deployments have no change feed yet.
+     */
+    static class NotSharded extends NoneNestedConditions {
+
+        NotSharded(){
+            super(ConfigurationPhase.PARSE_CONFIGURATION);
+        }
+
+        @ConditionalOnProperty("user.sharding.urls")
+        static class Sharded {
+        }
+    }
+}
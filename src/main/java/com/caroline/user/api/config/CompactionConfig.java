@@ -0,0 +1,40 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.compaction.UserCompactor;
+import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.sharding.IdRangeShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(value = "user.compaction.enabled", havingValue = "true", matchIfMissing = true)
+public class CompactionConfig {
+
+    /**
+     * Nothing ever asks for the compactor, so a lazy one would never start.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerCompactor(){
+        return LazyInitializationExcludeFilter.forBeanTypes(UserCompactor.class);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public UserCompactor userCompactor(UserRepository repository, PlatformTransactionManager transactionManager,
+                                       @Value("${user.compaction.batch-size:500}") int batchSize,
+                                       @Value("${user.compaction.rate:500}") double rate,
+                                       @Value("${user.compaction.interval:1m}") Duration interval,
+                                       @Value("${user.compaction.grace:10m}") Duration grace,
+                                       MeterRegistry registry, ObjectProvider<IdRangeShardRouter> shardRouter){
+        UserCompactor compactor = new UserCompactor(repository, transactionManager, batchSize, rate, interval, grace, registry);
+        shardRouter.ifAvailable(router -> compactor.setShards(router.getShards()));
+        return compactor;
+    }
+}
@@ -0,0 +1,57 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.datasource.ReplicaRoutingDataSource;
+import com.caroline.user.api.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    public static final String SATURATION_GAUGE = "user.datasource.saturation";
+
+    /**
+     * Hikari already publishes hikaricp.connections.* (active, idle, pending, timeout, acquire). This adds one
+     * number to alert on: connections in use plus threads waiting for one, over the maximum pool size. Above 1
+     * requests are queueing for the pool.
+     */
+    @Bean
+    public MeterBinder dataSourceSaturationMetrics(ObjectProvider<DataSource> dataSource,
+                                                   ObjectProvider<ReplicaRoutingDataSource> routing,
+                                                   ObjectProvider<ShardRoutingDataSource> sharding){
+        return registry -> {
+            dataSource.ifAvailable(pool -> {
+                if (pool instanceof HikariDataSource)
+                    bind((HikariDataSource) pool, registry);
+            });
+            routing.ifAvailable(replicas -> replicas.getPools().forEach(pool -> bind(pool, registry)));
+            sharding.ifAvailable(shards -> shards.getShards().forEach(pool -> bind(pool, registry)));
+        };
+    }
+
+    private static void bind(HikariDataSource dataSource, MeterRegistry registry){
+        // Boot only instruments pools that are beans, which replica and shard pools are not
+        if (dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null)
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        Gauge.builder(SATURATION_GAUGE, dataSource, DataSourceConfig::saturation)
+                .tag("pool", dataSource.getPoolName())
+                .register(registry);
+    }
+
+    private static double saturation(HikariDataSource dataSource){
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null)
+            return 0;
+        return (double) (pool.getActiveConnections() + pool.getThreadsAwaitingConnection())
+                / dataSource.getMaximumPoolSize();
+    }
+}
@@ -0,0 +1,44 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.cache.UserCache;
+import com.caroline.user.api.invalidation.InJvmInvalidationTransport;
+import com.caroline.user.api.invalidation.InvalidationTransport;
+import com.caroline.user.api.invalidation.UserInvalidationBroadcaster;
+import com.caroline.user.api.search.UserSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class InvalidationConfig {
+
+    @Bean
+    @ConditionalOnProperty(value = "user.invalidation.transport", havingValue = "in-jvm", matchIfMissing = true)
+    public InvalidationTransport inJvmInvalidationTransport(){
+        return new InJvmInvalidationTransport();
+    }
+
+    /**
+     * The broadcaster has to subscribe at startup, not on the first local write.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerInvalidationBroadcaster(){
+        return LazyInitializationExcludeFilter.forBeanTypes(UserInvalidationBroadcaster.class);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public UserInvalidationBroadcaster userInvalidationBroadcaster(
+            @Value("${user.invalidation.node-id:${random.uuid}}") String nodeId,
+            @Value("${user.datasource.replicas.max-lag:0ms}") Duration replicaLag,
+            InvalidationTransport transport, UserCache cache, UserSearchIndex searchIndex, MeterRegistry registry){
+        UserInvalidationBroadcaster broadcaster =
+                new UserInvalidationBroadcaster(nodeId, transport, cache, searchIndex, registry);
+        broadcaster.setReplicaLag(replicaLag);
+        return broadcaster;
+    }
+}
@@ -1,13 +1,18 @@
 package com.caroline.user.api.config;
 
 import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.password.PasswordHasher;
 import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.sharding.EmailDirectory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @Profile("local")
@@ -16,13 +21,27 @@ public class LocalConfig {
     @Autowired
     private UserRepository repository;
 
-    @Bean
+    @Autowired
+    private PasswordHasher hasher;
+
+    @Autowired
+    private ObjectProvider<EmailDirectory> emailDirectory;
+
+    /**
+     * Runs once the application has started rather than as a bean, so it still runs with lazy initialization
+     * and before the application runners that read the table (e.g. the search index loader). Unlike
+     * ContextRefreshedEvent this fires once, not again for every child context refreshed later.
+     */
+    @EventListener(ApplicationStartedEvent.class)
     public void startDB(){
 
-        User u1 = User.builder().id(null).name("Valdir").email("valdir@email.com").password("123").build();
-        User u2 = User.builder().id(null).name("Luiz").email("luiz@email.com").password("123").build();
+        List<String> passwords = hasher.hashAll(List.of("123", "123"));
+        User u1 = User.builder().id(null).name("Valdir").email("valdir@email.com").password(passwords.get(0)).build();
+        User u2 = User.builder().id(null).name("Luiz").email("luiz@email.com").password(passwords.get(1)).build();
 
         repository.saveAll(List.of(u1, u2));
+        // saved straight to shard 0, so when sharded their emails still have to be registered
+        emailDirectory.ifAvailable(directory -> directory.claim(Map.of(u1.getEmail(), u1.getId(), u2.getEmail(), u2.getId())));
 
     }
 }
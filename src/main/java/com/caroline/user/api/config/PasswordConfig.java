@@ -0,0 +1,42 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.password.PasswordHasher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+
+@Configuration
+public class PasswordConfig {
+
+    /**
+     * Stored values are prefixed with the encoder id, e.g. {bcrypt}, so the algorithm or its cost can change
+     * without invalidating existing rows.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${user.password.algorithm:bcrypt}") String algorithm,
+                                           @Value("${user.password.bcrypt.strength:10}") int strength,
+                                           @Value("${user.password.pbkdf2.iterations:185000}") int iterations){
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", new BCryptPasswordEncoder(strength),
+                "pbkdf2", new Pbkdf2PasswordEncoder("", 16, iterations, 256));
+        return new DelegatingPasswordEncoder(algorithm, encoders);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public PasswordHasher passwordHasher(PasswordEncoder passwordEncoder,
+                                         @Value("${user.password.threads:0}") int threads,
+                                         @Value("${user.password.queue-capacity:256}") int queueCapacity,
+                                         MeterRegistry registry){
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        PasswordHasher hasher = new PasswordHasher(passwordEncoder, poolSize, queueCapacity);
+        hasher.bindTo(registry);
+        return hasher;
+    }
+}
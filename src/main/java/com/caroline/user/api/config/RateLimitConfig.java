@@ -0,0 +1,66 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.controller.UserController;
+import com.caroline.user.api.ratelimit.AdaptiveConcurrencyLimiter;
+import com.caroline.user.api.ratelimit.RateLimitInterceptor;
+import com.caroline.user.api.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(value = "user.ratelimit.enabled", havingValue = "true")
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${user.ratelimit.rate:100}")
+    private double rate;
+
+    @Value("${user.ratelimit.burst:200}")
+    private int burst;
+
+    @Value("${user.ratelimit.maximum-clients:100000}")
+    private long maximumClients;
+
+    @Value("${user.ratelimit.client-header:}")
+    private String clientHeader;
+
+    @Value("${user.ratelimit.concurrency.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${user.ratelimit.concurrency.min-limit:4}")
+    private int minLimit;
+
+    @Value("${user.ratelimit.concurrency.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${user.ratelimit.concurrency.latency-threshold:250ms}")
+    private Duration latencyThreshold;
+
+    @Value("${user.ratelimit.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(
+                new TokenBucketRateLimiter(rate, burst, maximumClients),
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThreshold.toNanos(), backoffRatio),
+                this.registry);
+        interceptor.setClientHeader(clientHeader);
+        registry.addInterceptor(interceptor)
+                .addPathPatterns("/user", "/user/**")
+                // long polls and bulk streams are held open on purpose and would read as overload to the concurrency limiter
+                .excludePathPatterns("/user" + UserController.CHANGES, "/user" + UserController.EXPORT,
+                        "/user" + UserController.IMPORT)
+                .order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
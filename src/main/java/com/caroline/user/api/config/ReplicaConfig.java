@@ -0,0 +1,90 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.datasource.ReadYourWritesFilter;
+import com.caroline.user.api.datasource.ReplicaRoutingDataSource;
+import com.caroline.user.api.datasource.ReplicaSelector;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read/write splitting, enabled by listing replica JDBC URLs in {@code user.datasource.replicas.urls}.
+ * Replica pools reuse the primary's Hikari settings and credentials.
+ */
+@Configuration
+@ConditionalOnProperty("user.datasource.replicas.urls")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties){
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${user.datasource.replicas.urls}") List<String> urls,
+            @Value("${user.datasource.replicas.selection:round-robin}") String selection){
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            // the no-arg constructor keeps the pool lazy, like the primary, until the first connection
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(urls.get(i));
+            replica.setPoolName(primaryDataSource.getPoolName() + "-replica-" + i);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, selector(selection, replicas));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource){
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${user.datasource.replicas.sticky-window:5s}") Duration stickyWindow){
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(stickyWindow));
+        registration.addUrlPatterns("/user", "/user/*");
+        return registration;
+    }
+
+    private static ReplicaSelector selector(String selection, List<HikariDataSource> replicas){
+        switch (selection) {
+            case "round-robin":
+                return ReplicaSelector.roundRobin(replicas.size());
+            case "least-loaded":
+                List<IntSupplier> loads = replicas.stream()
+                        .map(replica -> (IntSupplier) () -> load(replica))
+                        .collect(Collectors.toList());
+                return ReplicaSelector.leastLoaded(loads);
+            default:
+                throw new IllegalArgumentException("Unknown replica selection: " + selection);
+        }
+    }
+
+    private static int load(HikariDataSource replica){
+        HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+}
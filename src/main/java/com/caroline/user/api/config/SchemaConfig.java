@@ -0,0 +1,55 @@
+package com.caroline.user.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.UncategorizedScriptException;
+
+import javax.sql.DataSource;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Applies explicit DDL for databases where Hibernate only validates the schema, before the entity manager
+ * starts. Replaces Boot's script initializer, which never commits: the pools run with auto-commit off, so
+ * on PostgreSQL, where DDL is transactional, the schema would be rolled back when the connection returns.
+ */
+@Configuration
+@ConditionalOnProperty("user.datasource.schema-locations")
+public class SchemaConfig {
+
+    @Bean
+    public DataSourceScriptDatabaseInitializer schemaInitializer(DataSource dataSource,
+            @Value("${user.datasource.schema-locations}") List<String> schemaLocations){
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(schemaLocations);
+        settings.setMode(DatabaseInitializationMode.ALWAYS);
+        return new DataSourceScriptDatabaseInitializer(dataSource, settings) {
+
+            @Override
+            protected void runScripts(List<Resource> resources, boolean continueOnError, String separator,
+                                      Charset encoding) {
+                ResourceDatabasePopulator populator = new ResourceDatabasePopulator(resources.toArray(new Resource[0]));
+                populator.setContinueOnError(continueOnError);
+                populator.setSeparator(separator);
+                if (encoding != null)
+                    populator.setSqlScriptEncoding(encoding.name());
+                try (Connection connection = getDataSource().getConnection()) {
+                    populator.populate(connection);
+                    if (!connection.getAutoCommit())
+                        connection.commit();
+                } catch (SQLException ex) {
+                    throw new UncategorizedScriptException("Failed to apply " + resources, ex);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.search.UserSearchIndex;
+import com.caroline.user.api.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class SearchConfig {
+
+    public static final int LOAD_PAGE_SIZE = 1000;
+
+    @Bean
+    public UserSearchIndex userSearchIndex(MeterRegistry registry){
+        UserSearchIndex index = new UserSearchIndex();
+        index.bindTo(registry);
+        return index;
+    }
+
+    /**
+     * Fills the index once at startup, page by page; later writes keep it current through the service.
+     */
+    @Bean
+    public ApplicationRunner userSearchIndexLoader(UserSearchIndex index, UserService service){
+        return args -> {
+            Integer after = null;
+            List<UserDTO> page;
+            do {
+                page = service.findPage(after, LOAD_PAGE_SIZE);
+                for (UserDTO user : page) {
+                    index.load(user);
+                    after = user.getId();
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+            index.loaded();
+        };
+    }
+}
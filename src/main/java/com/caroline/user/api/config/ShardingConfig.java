@@ -0,0 +1,102 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.service.UserServiceImpl;
+import com.caroline.user.api.sharding.EmailDirectory;
+import com.caroline.user.api.sharding.IdRangeShardRouter;
+import com.caroline.user.api.sharding.ShardRoutingDataSource;
+import com.caroline.user.api.sharding.ShardedUserService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Id-range sharding, enabled by listing the JDBC URLs of the shards after the first in
+ * {@code user.sharding.urls}; {@code spring.datasource.url} is shard 0, which also holds the
+ * {@link EmailDirectory}. Shard pools reuse shard 0's Hikari settings and credentials. Hibernate only manages
+ * the schema of shard 0, the other shards must already have the user table and sequence. Each shard owns
+ * {@code user.sharding.range-size} ids, which must not change once users were created.
+ * <p>
+ * Cannot be combined with read replicas, and turns off the change feed, whose relay only reads shard 0.
+ */
+@Configuration
+@ConditionalOnProperty("user.sharding.urls")
+public class ShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource firstShardDataSource(DataSourceProperties properties){
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource firstShardDataSource,
+                                                         @Value("${user.sharding.urls}") List<String> urls){
+        List<HikariDataSource> shards = new ArrayList<>(urls.size() + 1);
+        shards.add(firstShardDataSource);
+        for (String url : urls) {
+            HikariDataSource shard = new HikariDataSource();
+            firstShardDataSource.copyStateTo(shard);
+            shard.setJdbcUrl(url);
+            shard.setPoolName(firstShardDataSource.getPoolName() + "-shard-" + shards.size());
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource){
+        return shardRoutingDataSource;
+    }
+
+    @Bean
+    public IdRangeShardRouter shardRouter(ShardRoutingDataSource shardRoutingDataSource,
+                                          @Value("${user.sharding.range-size:100000000}") int rangeSize){
+        List<HikariDataSource> shards = shardRoutingDataSource.getShards();
+        IdRangeShardRouter router = new IdRangeShardRouter(shards.size(), rangeSize);
+        for (int i = 1; i < shards.size(); i++)
+            alignIdSequence(shards.get(i), router.rangeStart(i));
+        return router;
+    }
+
+    @Bean(initMethod = "start")
+    public EmailDirectory emailDirectory(HikariDataSource firstShardDataSource,
+                                         ShardRoutingDataSource shardRoutingDataSource){
+        return new EmailDirectory(firstShardDataSource, shardRoutingDataSource.getShards());
+    }
+
+    @Bean(destroyMethod = "stop")
+    @Primary
+    public ShardedUserService shardedUserService(UserServiceImpl shardLocal, IdRangeShardRouter shardRouter,
+                                                 EmailDirectory emailDirectory){
+        return new ShardedUserService(shardLocal, shardRouter, emailDirectory);
+    }
+
+    /**
+     * Starts an empty shard's sequence at its range. Hibernate's pooled optimizer hands out the
+     * {@link User#ID_ALLOCATION_SIZE} ids up to the value it reads, so the sequence must stand that far past
+     * the start.
+     */
+    private static void alignIdSequence(HikariDataSource shard, int rangeStart){
+        JdbcTemplate jdbc = new JdbcTemplate(shard);
+        new TransactionTemplate(new DataSourceTransactionManager(shard)).executeWithoutResult(status -> {
+            Integer highest = jdbc.queryForObject("select max(id) from " + User.TABLE, Integer.class);
+            if (highest == null || highest < rangeStart)
+                jdbc.execute("alter sequence " + User.ID_SEQUENCE + " restart with "
+                        + (rangeStart + User.ID_ALLOCATION_SIZE - 1));
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.password.PasswordHasher;
+import com.caroline.user.api.service.UserService;
+import com.caroline.user.api.writebehind.UpdateJournal;
+import com.caroline.user.api.writebehind.UserWriteBehind;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(value = "user.write-behind.enabled", havingValue = "true")
+public class WriteBehindConfig {
+
+    /**
+     * Replays the journal at startup instead of on the first queued update.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerWriteBehind(){
+        return LazyInitializationExcludeFilter.forBeanTypes(UserWriteBehind.class);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public UserWriteBehind userWriteBehind(UserService service, PasswordHasher hasher, ObjectMapper objectMapper,
+                                           @Value("${user.write-behind.journal-dir}") Path journalDir,
+                                           @Value("${user.write-behind.batch-size:500}") int batchSize,
+                                           @Value("${user.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                           MeterRegistry registry){
+        return new UserWriteBehind(service, hasher, new UpdateJournal(journalDir), objectMapper,
+                batchSize, flushInterval, registry);
+    }
+}
@@ -0,0 +1,65 @@
+package com.caroline.user.api.controller;
+
+import com.caroline.user.api.exception.PreconditionFailedException;
+import com.caroline.user.api.model.projection.UserVersion;
+
+import java.util.List;
+
+/**
+ * Weak ETags derived from the optimistic-lock version, so they can be checked without loading the user. Weak
+ * because JSON, CBOR and Smile, plain or gzipped, are different bytes for the same version, and because
+ * Tomcat never compresses a response carrying a strong ETag.
+ */
+public final class ETags {
+
+    private ETags(){
+    }
+
+    public static String of(Long version){
+        return "W/\"" + version + "\"";
+    }
+
+    public static String ofPage(List<? extends UserVersion> versions){
+        long hash = 1125899906842597L;
+        for (UserVersion version : versions) {
+            hash = 31 * hash + version.getId();
+            hash = 31 * hash + (version.getVersion() == null ? 0 : version.getVersion());
+        }
+        return "W/\"p" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Weak comparison, as required for If-None-Match.
+     */
+    public static boolean matches(String ifNoneMatch, String etag){
+        if (ifNoneMatch == null)
+            return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = opaque(candidate.trim());
+            if (value.equals("*") || value.equals(opaque(etag)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Version expected by an If-Match header, or null when the header is absent or "*". Accepts the weak tags
+     * handed out here: they name a version of the user, which is exactly what a lost-update check compares.
+     */
+    public static Long expectedVersion(String ifMatch){
+        if (ifMatch == null || ifMatch.trim().equals("*"))
+            return null;
+        String value = opaque(ifMatch.trim());
+        if (value.length() < 3 || !value.startsWith("\"") || !value.endsWith("\""))
+            throw new PreconditionFailedException("Invalid If-Match header");
+        try {
+            return Long.valueOf(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException ex) {
+            throw new PreconditionFailedException("Invalid If-Match header");
+        }
+    }
+
+    private static String opaque(String etag){
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,35 @@
+package com.caroline.user.api.controller;
+
+import com.caroline.user.api.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for {@code GET /user}: wraps the last id returned by the previous page.
+ */
+public final class PageCursor {
+
+    private static final String PREFIX = "id:";
+
+    private PageCursor(){
+    }
+
+    public static String encode(Integer lastId){
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Integer decode(String cursor){
+        if (cursor == null || cursor.isBlank())
+            return null;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX))
+                throw new BadRequestException("Invalid cursor");
+            return Integer.valueOf(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -1,15 +1,38 @@
 package com.caroline.user.api.controller;
 
 
+import com.caroline.user.api.changes.UserChangeRelay;
+import com.caroline.user.api.exception.BadRequestException;
+import com.caroline.user.api.exception.NotFoundException;
+import com.caroline.user.api.model.DTO.BatchItemResult;
+import com.caroline.user.api.model.DTO.ImportProgress;
+import com.caroline.user.api.model.DTO.UserChangeDTO;
 import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.mapper.UserCsv;
+import com.caroline.user.api.model.mapper.UserMapper;
+import com.caroline.user.api.model.projection.UserVersion;
+import com.caroline.user.api.service.UserImporter;
 import com.caroline.user.api.service.UserService;
-import org.modelmapper.ModelMapper;
+import com.caroline.user.api.writebehind.UserWriteBehind;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -17,23 +40,217 @@ import java.util.stream.Collectors;
 public class UserController {
 
     public static final String ID = "/{id}";
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final String BATCH = "/batch";
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final String SEARCH = "/search";
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    public static final String EXPORT = "/export";
+    public static final String IMPORT = "/import";
+    public static final String CHANGES = "/changes";
+    public static final String NEXT_SINCE = "X-Next-Since";
+    public static final int MAX_CHANGES_WAIT_SECONDS = 20;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
-    private ModelMapper mapper;
+    private UserMapper mapper;
 
     @Autowired
     private UserService service;
 
+    @Autowired
+    private UserImporter importer;
+
+    @Autowired(required = false)
+    private UserWriteBehind writeBehind;
+
+    @Autowired(required = false)
+    private UserChangeRelay changeRelay;
+
+    @Autowired
+    private AsyncTaskExecutor taskExecutor;
+
     @GetMapping(value = ID)
-    public ResponseEntity<UserDTO> findById(@PathVariable Integer id){
-        return ResponseEntity.ok().body(mapper.map(service.findById(id), UserDTO.class));
+    public ResponseEntity<UserDTO> findById(@PathVariable Integer id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+
+        if (ifNoneMatch != null) {
+            String etag = ETags.of(service.findVersionById(id));
+            if (ETags.matches(ifNoneMatch, etag))
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT).eTag(etag).build();
+        }
+
+        UserDTO user = service.findViewById(id);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(ETags.of(user.getVersion())).body(user);
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDTO>> findAll(){
-        return ResponseEntity.ok()
-                .body(service.findAll().stream()
-                        .map(u -> mapper.map(u, UserDTO.class))
-                        .collect(Collectors.toList()));
+    public ResponseEntity<List<UserDTO>> findAll(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+
+        Integer after = PageCursor.decode(cursor);
+        int pageSize = pageSize(size);
+
+        if (ifNoneMatch != null) {
+            List<UserVersion> versions = service.findPageVersions(after, pageSize);
+            String etag = ETags.ofPage(versions);
+            if (ETags.matches(ifNoneMatch, etag))
+                return pageResponse(HttpStatus.NOT_MODIFIED, versions, pageSize).eTag(etag).build();
+        }
+
+        List<UserDTO> page = service.findPage(after, pageSize);
+        return pageResponse(HttpStatus.OK, page, pageSize).eTag(ETags.ofPage(page)).body(page);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "" + MAX_PAGE_SIZE) int size){
+
+        Integer start = PageCursor.decode(cursor);
+        int pageSize = pageSize(size);
+
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Integer after = start;
+            List<UserDTO> page;
+            do {
+                page = service.findPage(after, pageSize);
+                for (UserDTO user : page) {
+                    objectMapper.writeValue(generator, user);
+                    generator.writeRaw('\n');
+                    after = user.getId();
+                }
+                generator.flush();
+            } while (page.size() == pageSize);
+            generator.close();
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping(value = SEARCH)
+    public ResponseEntity<List<UserDTO>> search(@RequestParam String q,
+                                                @RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit){
+
+        if (q.isBlank())
+            throw new BadRequestException("Search query must not be blank");
+
+        return ResponseEntity.ok().body(service.search(q, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT))));
+    }
+
+    /**
+     * Long poll: answers as soon as there are changes after {@code since}, or with an empty list after
+     * {@code wait} seconds. {@link #NEXT_SINCE} is the {@code since} to send next.
+     */
+    @GetMapping(value = CHANGES)
+    public CompletableFuture<ResponseEntity<List<UserChangeDTO>>> changes(@RequestParam long since,
+                                                                         @RequestParam(defaultValue = "" + MAX_PAGE_SIZE) int limit,
+                                                                         @RequestParam(defaultValue = "" + MAX_CHANGES_WAIT_SECONDS) int wait){
+
+        if (changeRelay == null)
+            throw new NotFoundException("Change feed is disabled");
+        if (since < 0)
+            throw new BadRequestException("since must not be negative");
+
+        int pageSize = pageSize(limit);
+        Duration timeout = Duration.ofSeconds(Math.max(0, Math.min(wait, MAX_CHANGES_WAIT_SECONDS)));
+
+        return changeRelay.awaitAfter(since, timeout)
+                .thenApplyAsync(published -> {
+                    List<UserChangeDTO> changes = changeRelay.findAfter(since, pageSize);
+                    long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+                    return ResponseEntity.ok().header(NEXT_SINCE, String.valueOf(next)).body(changes);
+                }, taskExecutor);
+    }
+
+    /**
+     * Streams every user's public view, as NDJSON or CSV. This is not a backup format: password hashes are left
+     * out, and importing the file creates new users under new ids. Back up the database for that.
+     */
+    @GetMapping(value = EXPORT)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format){
+
+        if (format.equalsIgnoreCase("csv")) {
+            StreamingResponseBody body = out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writer.write(UserCsv.HEADER);
+                writer.write('\n');
+                service.exportViews(user -> {
+                    try {
+                        UserCsv.write(writer, user);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                writer.flush();
+            };
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(UserCsv.MEDIA_TYPE)).body(body);
+        }
+
+        if (!format.equalsIgnoreCase("ndjson"))
+            throw new BadRequestException("Unsupported export format: " + format);
+
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            service.exportViews(user -> {
+                try {
+                    objectMapper.writeValue(generator, user);
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generator.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Creates a user per NDJSON line or CSV record, each with a plaintext password to hash, and streams back
+     * per item errors and progress. Ids and versions in the input are ignored, so this does not restore an
+     * export.
+     */
+    @PostMapping(value = IMPORT, consumes = {MediaType.APPLICATION_NDJSON_VALUE, UserCsv.MEDIA_TYPE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                             InputStream input){
+
+        boolean csv = contentType.isCompatibleWith(MediaType.parseMediaType(UserCsv.MEDIA_TYPE));
+
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            UserImporter.Listener listener = new UserImporter.Listener() {
+                @Override
+                public void onError(BatchItemResult error) throws IOException {
+                    objectMapper.writeValue(generator, error);
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void onProgress(ImportProgress progress) throws IOException {
+                    objectMapper.writeValue(generator, progress);
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+            };
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            if (csv)
+                importer.importCsv(reader, listener);
+            else
+                importer.importNdjson(reader, listener);
+            generator.close();
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping
@@ -46,18 +263,94 @@ public class UserController {
     }
 
     @PutMapping(value = ID)
-    public ResponseEntity<UserDTO> update(@PathVariable Integer id, @RequestBody UserDTO userDTO){
+    public ResponseEntity<UserDTO> update(@PathVariable Integer id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestBody UserDTO userDTO){
 
         userDTO.setId(id);
+        userDTO.setVersion(ETags.expectedVersion(ifMatch));
+        validateLengths(userDTO);
+
+        // a conditional update needs the current row, so only unconditional ones are queued
+        if (writeBehind != null && userDTO.getVersion() == null) {
+            writeBehind.submit(userDTO);
+            return ResponseEntity.accepted().build();
+        }
 
-        return ResponseEntity.ok().body(mapper.map(service.update(userDTO), UserDTO.class));
+        flushQueued(List.of(id));
+        User user = service.update(userDTO);
+        return ResponseEntity.ok().eTag(ETags.of(user.getVersion())).body(mapper.toDTO(user));
     }
 
     @DeleteMapping(value = ID)
     public ResponseEntity<UserDTO> delete(@PathVariable Integer id){
 
+        flushQueued(List.of(id));
         service.delete(id);
 
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping(value = BATCH)
+    public ResponseEntity<List<BatchItemResult>> createAll(@RequestBody List<UserDTO> users){
+
+        validateBatchSize(users);
+
+        return ResponseEntity.ok().body(service.createAll(users));
+    }
+
+    @PutMapping(value = BATCH)
+    public ResponseEntity<List<BatchItemResult>> updateAll(@RequestBody List<UserDTO> users){
+
+        validateBatchSize(users);
+        flushQueued(users.stream().map(UserDTO::getId).filter(Objects::nonNull).collect(Collectors.toList()));
+
+        return ResponseEntity.ok().body(service.updateAll(users));
+    }
+
+    @DeleteMapping(value = BATCH)
+    public ResponseEntity<List<BatchItemResult>> deleteAll(@RequestBody List<Integer> ids){
+
+        validateBatchSize(ids);
+        flushQueued(ids);
+
+        return ResponseEntity.ok().body(service.deleteAll(ids));
+    }
+
+    /**
+     * Writes queued updates of these users before a synchronous write, which must land after them.
+     */
+    private void flushQueued(List<Integer> ids){
+        if (writeBehind != null)
+            writeBehind.flush(ids);
+    }
+
+    /**
+     * Queued updates are written after the response, so what the columns cannot hold is rejected up front.
+     */
+    private void validateLengths(UserDTO userDTO){
+        if (tooLong(userDTO.getName()) || tooLong(userDTO.getEmail()))
+            throw new BadRequestException("Name and email must not exceed " + User.MAX_TEXT_LENGTH + " characters");
+    }
+
+    private static boolean tooLong(String value){
+        return value != null && value.length() > User.MAX_TEXT_LENGTH;
+    }
+
+    private void validateBatchSize(List<?> items){
+        if (items.isEmpty() || items.size() > MAX_BATCH_SIZE)
+            throw new BadRequestException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+    }
+
+    private ResponseEntity.BodyBuilder pageResponse(HttpStatus status, List<? extends UserVersion> page, int pageSize){
+        // JSON, CBOR and Smile pages share an ETag, so caches must key on Accept as well
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status).varyBy(HttpHeaders.ACCEPT);
+        if (page.size() == pageSize)
+            response.header(NEXT_CURSOR, PageCursor.encode(page.get(page.size() - 1).getId()));
+        return response;
+    }
+
+    private int pageSize(int size){
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 }
@@ -0,0 +1,54 @@
+package com.caroline.user.api.datasource;
+
+/**
+ * Per-thread read-your-writes scope, usually one HTTP request. Once the scope has written to the primary,
+ * or was opened sticky because the client wrote recently, read-only transactions stay on the primary too.
+ * Without an open scope reads are never pinned.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private ReadYourWrites(){
+    }
+
+    /**
+     * @param onFirstWrite runs once, when the scope first uses the primary for a write, e.g. to tell the client
+     *                     to stay sticky on its next requests
+     */
+    public static void open(boolean sticky, Runnable onFirstWrite){
+        SCOPE.set(new Scope(sticky, onFirstWrite));
+    }
+
+    public static void close(){
+        SCOPE.remove();
+    }
+
+    public static boolean isSticky(){
+        Scope scope = SCOPE.get();
+        return scope != null && scope.sticky;
+    }
+
+    static void written(){
+        Scope scope = SCOPE.get();
+        if (scope == null || scope.written)
+            return;
+        scope.written = true;
+        scope.sticky = true;
+        scope.onFirstWrite.run();
+    }
+
+    private static final class Scope {
+
+        private boolean sticky;
+
+        private boolean written;
+
+        private final Runnable onFirstWrite;
+
+        private Scope(boolean sticky, Runnable onFirstWrite){
+            this.sticky = sticky;
+            this.onFirstWrite = onFirstWrite;
+        }
+    }
+}
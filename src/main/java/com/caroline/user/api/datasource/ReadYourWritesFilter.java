@@ -0,0 +1,47 @@
+package com.caroline.user.api.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Opens a {@link ReadYourWrites} scope per request. A request that writes sets a short-lived cookie, and
+ * requests carrying it keep reading from the primary until replicas have had time to catch up.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "user-primary";
+
+    private final int stickySeconds;
+
+    public ReadYourWritesFilter(Duration stickyWindow){
+        this.stickySeconds = (int) Math.max(1, (stickyWindow.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean sticky = WebUtils.getCookie(request, COOKIE) != null;
+        ReadYourWrites.open(sticky, () -> response.addCookie(stickyCookie()));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.close();
+        }
+    }
+
+    private Cookie stickyCookie(){
+        Cookie cookie = new Cookie(COOKIE, "1");
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(stickySeconds);
+        return cookie;
+    }
+}
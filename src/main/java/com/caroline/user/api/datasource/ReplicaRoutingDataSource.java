@@ -0,0 +1,72 @@
+package com.caroline.user.api.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary. The decision needs the
+ * transaction's read-only flag, which Spring only sets after the transaction has begun, so this must sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that defers the
+ * physical connection to the first statement. Owns the replica pools and closes them with itself; the primary
+ * is a bean of its own.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+
+    private final List<HikariDataSource> replicas;
+
+    private final String[] replicaKeys;
+
+    private final ReplicaSelector selector;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, ReplicaSelector selector){
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selector = selector;
+        this.replicaKeys = new String[replicas.size()];
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            replicaKeys[i] = "replica-" + i;
+            targets.put(replicaKeys[i], replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    public List<HikariDataSource> getPools(){
+        List<HikariDataSource> pools = new ArrayList<>(replicas.size() + 1);
+        pools.add(primary);
+        pools.addAll(replicas);
+        return pools;
+    }
+
+    public List<HikariDataSource> getReplicas(){
+        return replicas;
+    }
+
+    @Override
+    public void close(){
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadYourWrites.isSticky())
+            return replicaKeys[selector.select()];
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+            ReadYourWrites.written();
+        return PRIMARY;
+    }
+}
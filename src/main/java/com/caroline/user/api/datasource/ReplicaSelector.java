@@ -0,0 +1,42 @@
+package com.caroline.user.api.datasource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Picks the replica, by index, that serves the next read-only transaction.
+ */
+@FunctionalInterface
+public interface ReplicaSelector {
+
+    int select();
+
+    static ReplicaSelector roundRobin(int replicas){
+        AtomicInteger next = new AtomicInteger();
+        return () -> Math.floorMod(next.getAndIncrement(), replicas);
+    }
+
+    /**
+     * Picks the replica reporting the lowest load; the scan starts at a rotating offset so idle replicas
+     * share ties instead of all reads landing on the first one.
+     */
+    static ReplicaSelector leastLoaded(List<? extends IntSupplier> loads){
+        AtomicInteger offset = new AtomicInteger();
+        return () -> {
+            int size = loads.size();
+            int start = Math.floorMod(offset.getAndIncrement(), size);
+            int best = start;
+            int bestLoad = loads.get(start).getAsInt();
+            for (int i = 1; i < size && bestLoad > 0; i++) {
+                int candidate = (start + i) % size;
+                int load = loads.get(candidate).getAsInt();
+                if (load < bestLoad) {
+                    best = candidate;
+                    bestLoad = load;
+                }
+            }
+            return best;
+        };
+    }
+}
@@ -1,6 +1,6 @@
 package com.caroline.user.api.exception;
 
-public class DataIntegrityViolationException extends RuntimeException{
+public class DataIntegrityViolationException extends DomainException{
 
     public DataIntegrityViolationException(String message){
         super(message);
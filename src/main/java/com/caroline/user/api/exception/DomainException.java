@@ -0,0 +1,13 @@
+package com.caroline.user.api.exception;
+
+/**
+ * Base for the exceptions {@link ResourceExceptionHandler} turns into 4xx/5xx bodies. They are expected
+ * outcomes (a miss, a bad cursor) rather than bugs, so they skip stack trace capture, which would otherwise
+ * dominate the cost of every 404.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    protected DomainException(String message){
+        super(message, null, false, false);
+    }
+}
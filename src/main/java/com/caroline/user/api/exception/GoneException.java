@@ -0,0 +1,8 @@
+package com.caroline.user.api.exception;
+
+public class GoneException extends DomainException{
+
+    public GoneException(String message){
+        super(message);
+    }
+}
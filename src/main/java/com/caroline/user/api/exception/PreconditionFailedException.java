@@ -0,0 +1,8 @@
+package com.caroline.user.api.exception;
+
+public class PreconditionFailedException extends DomainException{
+
+    public PreconditionFailedException(String message){
+        super(message);
+    }
+}
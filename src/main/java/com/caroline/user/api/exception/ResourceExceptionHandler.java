@@ -1,7 +1,11 @@
 package com.caroline.user.api.exception;
 
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -25,4 +29,57 @@ public class ResourceExceptionHandler {
                 .body(new StandardError
                         (LocalDateTime.now(), HttpStatus.BAD_REQUEST.value(), ex.getMessage(), request.getRequestURI()));
     }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<StandardError> badRequest(BadRequestException ex, HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new StandardError
+                        (LocalDateTime.now(), HttpStatus.BAD_REQUEST.value(), ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(GoneException.class)
+    public ResponseEntity<StandardError> gone(GoneException ex, HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.GONE)
+                .body(new StandardError
+                        (LocalDateTime.now(), HttpStatus.GONE.value(), ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<StandardError> tooManyRequests(TooManyRequestsException ex, HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new StandardError
+                        (LocalDateTime.now(), HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<StandardError> serviceUnavailable(ServiceUnavailableException ex, HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new StandardError
+                        (LocalDateTime.now(), HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<StandardError> preconditionFailed(PreconditionFailedException ex, HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(new StandardError
+                        (LocalDateTime.now(), HttpStatus.PRECONDITION_FAILED.value(), ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<StandardError> optimisticLockingFailure(OptimisticLockingFailureException ex,
+                                                                  HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new StandardError
+                        (LocalDateTime.now(), HttpStatus.CONFLICT.value(), "User was modified by another request",
+                                request.getRequestURI()));
+    }
+
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<StandardError> connectionUnavailable(RuntimeException ex, HttpServletRequest request){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new StandardError
+                        (LocalDateTime.now(), HttpStatus.SERVICE_UNAVAILABLE.value(), "Database unavailable",
+                                request.getRequestURI()));
+    }
 }
@@ -0,0 +1,44 @@
+package com.caroline.user.api.invalidation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Bus shared by every application context in the JVM, standing in for a broker in tests and single-host setups.
+ * Each subscriber gets its own delivery thread, so messages reach it in publish order without blocking the sender.
+ */
+public class InJvmInvalidationTransport implements InvalidationTransport {
+
+    private static final Map<Consumer<InvalidationMessage>, ExecutorService> SUBSCRIBERS = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        SUBSCRIBERS.forEach((listener, executor) -> {
+            try {
+                executor.execute(() -> listener.accept(message));
+            } catch (RejectedExecutionException ex) {
+                // subscriber is shutting down
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> listener) {
+        SUBSCRIBERS.computeIfAbsent(listener, key -> Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "user-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    @Override
+    public void unsubscribe(Consumer<InvalidationMessage> listener) {
+        ExecutorService executor = SUBSCRIBERS.remove(listener);
+        if (executor != null)
+            executor.shutdown();
+    }
+}
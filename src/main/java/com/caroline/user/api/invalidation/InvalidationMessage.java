@@ -0,0 +1,20 @@
+package com.caroline.user.api.invalidation;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class InvalidationMessage {
+
+    private final String origin;
+
+    private final long sentAt;
+
+    private final List<UserDTO> changed;
+
+    private final List<Integer> deleted;
+}
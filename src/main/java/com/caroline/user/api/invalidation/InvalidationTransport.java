@@ -0,0 +1,16 @@
+package com.caroline.user.api.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidation messages between nodes. Delivery is at-most-once and may be asynchronous;
+ * a node also receives its own messages and is expected to skip them.
+ */
+public interface InvalidationTransport {
+
+    void publish(InvalidationMessage message);
+
+    void subscribe(Consumer<InvalidationMessage> listener);
+
+    void unsubscribe(Consumer<InvalidationMessage> listener);
+}
@@ -0,0 +1,45 @@
+package com.caroline.user.api.invalidation;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.projection.UserVersion;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Published by the service for every write; applied to the local cache and index and broadcast to other
+ * nodes once the surrounding transaction (if any) has committed.
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    private final List<UserDTO> changed;
+
+    private final List<Integer> deleted;
+
+    /**
+     * The version each deleted user's tombstone got.
+     */
+    private final Map<Integer, Long> deletedVersions;
+
+    public static UserChangedEvent changed(UserDTO view){
+        return new UserChangedEvent(Collections.singletonList(view), List.of(), Map.of());
+    }
+
+    public static UserChangedEvent changed(Collection<UserDTO> views){
+        return new UserChangedEvent(new ArrayList<>(views), List.of(), Map.of());
+    }
+
+    public static UserChangedEvent deleted(Collection<? extends UserVersion> tombstones){
+        Map<Integer, Long> versions = new LinkedHashMap<>();
+        tombstones.forEach(tombstone -> versions.put(tombstone.getId(), tombstone.getVersion()));
+        return new UserChangedEvent(List.of(), new ArrayList<>(versions.keySet()), versions);
+    }
+}
@@ -0,0 +1,107 @@
+package com.caroline.user.api.invalidation;
+
+import com.caroline.user.api.cache.UserCache;
+import com.caroline.user.api.search.UserSearchIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Applies committed user changes to this node's cache and search index and broadcasts them, and evicts
+ * changes broadcast by other nodes. {@code user.invalidation.lag} records the time from the remote commit
+ * to local eviction, i.e. the staleness window. With read replicas a read racing the eviction can cache a
+ * stale row again, so remote changes are evicted a second time once {@code replicaLag} has passed.
+ */
+public class UserInvalidationBroadcaster {
+
+    private final String nodeId;
+
+    private final InvalidationTransport transport;
+
+    private final UserCache cache;
+
+    private final UserSearchIndex searchIndex;
+
+    private final Counter sent;
+
+    private final Counter received;
+
+    private final Timer lag;
+
+    private final Consumer<InvalidationMessage> listener = this::onMessage;
+
+    private Executor delayedEvictions;
+
+    public UserInvalidationBroadcaster(String nodeId, InvalidationTransport transport, UserCache cache,
+                                       UserSearchIndex searchIndex, MeterRegistry registry){
+        this.nodeId = nodeId;
+        this.transport = transport;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.sent = registry.counter("user.invalidation.sent");
+        this.received = registry.counter("user.invalidation.received");
+        this.lag = registry.timer("user.invalidation.lag");
+    }
+
+    public void setReplicaLag(Duration replicaLag){
+        this.delayedEvictions = replicaLag.isZero() ? null
+                : CompletableFuture.delayedExecutor(replicaLag.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public String getNodeId(){
+        return nodeId;
+    }
+
+    public void start(){
+        transport.subscribe(listener);
+    }
+
+    public void stop(){
+        transport.unsubscribe(listener);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event){
+        if (event.getChanged().isEmpty() && event.getDeleted().isEmpty())
+            return;
+
+        event.getChanged().forEach(view -> {
+            cache.put(view);
+            searchIndex.put(view);
+        });
+        event.getDeleted().forEach(id -> {
+            cache.evict(id);
+            searchIndex.remove(id);
+        });
+
+        transport.publish(new InvalidationMessage(nodeId, System.currentTimeMillis(), event.getChanged(), event.getDeleted()));
+        sent.increment();
+    }
+
+    void onMessage(InvalidationMessage message){
+        if (nodeId.equals(message.getOrigin()))
+            return;
+
+        message.getChanged().forEach(view -> {
+            cache.evict(view.getId());
+            searchIndex.put(view);
+        });
+        message.getDeleted().forEach(id -> {
+            cache.evict(id);
+            searchIndex.remove(id);
+        });
+
+        if (delayedEvictions != null)
+            delayedEvictions.execute(() -> message.getChanged().forEach(view -> cache.evict(view.getId())));
+
+        received.increment();
+        lag.record(Math.max(0, System.currentTimeMillis() - message.getSentAt()), TimeUnit.MILLISECONDS);
+    }
+}
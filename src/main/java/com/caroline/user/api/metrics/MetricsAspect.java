@@ -0,0 +1,74 @@
+package com.caroline.user.api.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Aspect
+@Component
+@ConditionalOnProperty(value = "user.metrics.aspect.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsAspect {
+
+    public static final String SERVICE_TIMER = "user.service";
+    public static final String REPOSITORY_TIMER = "user.repository";
+    public static final String MAPPING_TIMER = "user.mapping";
+    public static final String ERROR_COUNTER = "user.errors";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    // with sharding this times each shard-local call rather than the sharded service wrapping them
+    @Around("execution(* com.caroline.user.api.service.UserService.*(..)) && !within(com.caroline.user.api.sharding..*)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    @Around("execution(* com.caroline.user.api.repository.UserRepository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    @Around("execution(* com.caroline.user.api.model.mapper.UserMapper.*(..))")
+    public Object timeMapping(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(MAPPING_TIMER, joinPoint);
+    }
+
+    @Before("@annotation(org.springframework.web.bind.annotation.ExceptionHandler) && args(ex, ..)")
+    public void countError(Throwable ex){
+        registry.counter(ERROR_COUNTER, "exception", ex.getClass().getSimpleName()).increment();
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            Object result = joinPoint.proceed();
+            sample.stop(successTimers.computeIfAbsent(method, m -> timer(name, m, "none")));
+            return result;
+        } catch (Throwable ex) {
+            sample.stop(timer(name, method, ex.getClass().getSimpleName()));
+            throw ex;
+        }
+    }
+
+    private Timer timer(String name, Method method, String exception){
+        return Timer.builder(name)
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
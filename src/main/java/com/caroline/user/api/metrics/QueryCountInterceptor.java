@@ -0,0 +1,41 @@
+package com.caroline.user.api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records how many SQL statements each request ran, tagged by endpoint, to surface N+1 and double-query patterns.
+ */
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+    public static final String QUERY_SUMMARY = "user.request.queries";
+
+    private final MeterRegistry registry;
+
+    public QueryCountInterceptor(MeterRegistry registry){
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCountInspector.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder(QUERY_SUMMARY)
+                .tag("method", request.getMethod())
+                .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(QueryCountInspector.count());
+    }
+}
@@ -0,0 +1,17 @@
+package com.caroline.user.api.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BatchItemResult {
+
+    private Integer index;
+
+    private Integer id;
+
+    private Integer status;
+
+    private String error;
+}
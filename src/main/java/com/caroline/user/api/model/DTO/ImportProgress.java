@@ -0,0 +1,17 @@
+package com.caroline.user.api.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ImportProgress {
+
+    private long lines;
+
+    private long created;
+
+    private long failed;
+
+    private boolean done;
+}
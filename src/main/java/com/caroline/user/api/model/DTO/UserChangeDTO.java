@@ -0,0 +1,28 @@
+package com.caroline.user.api.model.DTO;
+
+import com.caroline.user.api.model.entity.UserChange;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserChangeDTO {
+
+    private Long sequence;
+
+    private UserChange.Type type;
+
+    private Integer userId;
+
+    private String name;
+
+    private String email;
+
+    private Long version;
+
+    private Instant changedAt;
+}
@@ -1,5 +1,6 @@
 package com.caroline.user.api.model.DTO;
 
+import com.caroline.user.api.model.projection.UserVersion;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 
@@ -8,7 +9,7 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-public class UserDTO {
+public class UserDTO implements UserVersion {
 
     private Integer id;
 
@@ -18,4 +19,11 @@ public class UserDTO {
 
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    public UserDTO(Integer id, String name, String email, Long version){
+        this(id, name, email, null, version);
+    }
 }
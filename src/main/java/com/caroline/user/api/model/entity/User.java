@@ -1,25 +1,67 @@
 package com.caroline.user.api.model.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.Where;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(name = User.TABLE, uniqueConstraints = @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"))
+@Where(clause = "deleted_at is null")
 @Builder
 public class User {
 
+    /**
+     * Plural, since {@code user} is reserved in PostgreSQL and the SQL standard.
+     */
+    public static final String TABLE = "users";
+
+    public static final String EMAIL_CONSTRAINT = "uk_user_email";
+
+    public static final String ID_SEQUENCE = "user_seq";
+
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Hibernate's default, which the name and email columns keep.
+     */
+    public static final int MAX_TEXT_LENGTH = 255;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @GenericGenerator(name = ID_SEQUENCE, strategy = "com.caroline.user.api.sharding.ShardSequenceGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = ID_SEQUENCE),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_ALLOCATION_SIZE)})
     private Integer id;
 
     private String name;
 
-    @Column(unique = true)
     private String email;
 
     private String password;
+
+    @Version
+    private Long version;
+
+    /**
+     * Set when the user is deleted. The row stays behind as a tombstone, hidden from every query on this
+     * entity, until the compactor purges it. Not indexed on purpose: reads go through the primary key and
+     * check this on the row, while an index here tempts the planner into scanning every live row for
+     * {@code deleted_at is null} and sorting them. The compactor instead uses a partial index on the ids of
+     * tombstones, which the schema of databases that support one (e.g. db/postgres/schema.sql) creates.
+     */
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    public User(Integer id, String name, String email, String password){
+        this(id, name, email, password, null, null);
+    }
 }
@@ -0,0 +1,45 @@
+package com.caroline.user.api.model.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Outbox row, written in the same transaction as the user change it records.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "user_change", indexes = @Index(name = "uk_user_change_sequence", columnList = "change_seq", unique = true))
+@Builder
+public class UserChange {
+
+    public enum Type { CHANGED, DELETED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_change_seq")
+    @SequenceGenerator(name = "user_change_seq", sequenceName = "user_change_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Position in the change feed; null until the relay picks the row up after its transaction committed.
+     */
+    @Column(name = "change_seq")
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false)
+    private Type type;
+
+    private Integer userId;
+
+    private String name;
+
+    private String email;
+
+    private Long version;
+
+    private Instant changedAt;
+}
@@ -0,0 +1,112 @@
+package com.caroline.user.api.model.mapper;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 style CSV for user export and import. A quoted field may span lines; line breaks inside it are
+ * read back as {@code \n}. Export writes the public view only, never password hashes, and import takes a
+ * plaintext password column and no ids, so the two do not round-trip as a backup.
+ */
+public final class UserCsv {
+
+    public static final String MEDIA_TYPE = "text/csv";
+
+    public static final String HEADER = "id,name,email,version";
+
+    private UserCsv(){
+    }
+
+    public static void write(Writer out, UserDTO user) throws IOException {
+        out.write(user.getId() == null ? "" : user.getId().toString());
+        out.write(',');
+        writeField(out, user.getName());
+        out.write(',');
+        writeField(out, user.getEmail());
+        out.write(',');
+        out.write(user.getVersion() == null ? "" : user.getVersion().toString());
+        out.write('\n');
+    }
+
+    /**
+     * Builds a user from a record using the column names of the header; unknown columns, id and version are ignored.
+     */
+    public static UserDTO read(String[] header, String[] record){
+        UserDTO user = new UserDTO();
+        for (int i = 0; i < header.length && i < record.length; i++) {
+            String value = record[i].isEmpty() ? null : record[i];
+            switch (header[i].trim().toLowerCase(Locale.ROOT)) {
+                case "name":
+                    user.setName(value);
+                    break;
+                case "email":
+                    user.setEmail(value);
+                    break;
+                case "password":
+                    user.setPassword(value);
+                    break;
+                default:
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Whether the line has an odd number of quotes, i.e. a record continued on it changes from being inside a
+     * quoted field to outside or back. Checked line by line, so following a record costs its length once.
+     */
+    public static boolean togglesQuote(String line){
+        boolean toggles = false;
+        for (int i = 0; i < line.length(); i++)
+            if (line.charAt(i) == '"')
+                toggles = !toggles;
+        return toggles;
+    }
+
+    public static String[] parse(String line){
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted)
+            throw new IllegalArgumentException("Unterminated quoted field");
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null)
+            return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,24 @@
+package com.caroline.user.api.model.mapper;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hand-written User/UserDTO conversion: plain constructor calls, no reflection or type-map lookups.
+ */
+@Component
+public class UserMapper {
+
+    public UserDTO toDTO(User user){
+        return new UserDTO(user.getId(), user.getName(), user.getEmail(), user.getPassword(), user.getVersion());
+    }
+
+    public UserDTO toView(User user){
+        return new UserDTO(user.getId(), user.getName(), user.getEmail(), user.getVersion());
+    }
+
+    public User toEntity(UserDTO userDTO){
+        return new User(userDTO.getId(), userDTO.getName(), userDTO.getEmail(), userDTO.getPassword());
+    }
+}
@@ -0,0 +1,8 @@
+package com.caroline.user.api.model.projection;
+
+public interface UserVersion {
+
+    Integer getId();
+
+    Long getVersion();
+}
@@ -0,0 +1,107 @@
+package com.caroline.user.api.password;
+
+import com.caroline.user.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the (deliberately slow) {@link PasswordEncoder} on a dedicated bounded pool, so hashing cost is
+ * capped at a fixed number of cores instead of competing with every request thread. When the queue is
+ * full new work is rejected with a 503 rather than piling up behind it.
+ */
+public class PasswordHasher {
+
+    private static final String PREFIX = "{";
+
+    private final PasswordEncoder encoder;
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHasher(PasswordEncoder encoder, int threads, int queueCapacity){
+        this.encoder = encoder;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "password-hasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public void bindTo(MeterRegistry registry){
+        new ExecutorServiceMetrics(executor, "password.hasher", Tags.empty()).bindTo(registry);
+    }
+
+    public String hash(String rawPassword){
+        if (rawPassword == null)
+            return null;
+        return await(submit(() -> encoder.encode(rawPassword)));
+    }
+
+    /**
+     * Hashes a whole batch using at most one queued task per worker, so large batches cannot
+     * exhaust the queue on their own.
+     */
+    public List<String> hashAll(List<String> rawPasswords){
+        String[] hashes = new String[rawPasswords.size()];
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(executor.getMaximumPoolSize(), rawPasswords.size());
+
+        List<Future<Object>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(submit(() -> {
+                for (int index = next.getAndIncrement(); index < hashes.length; index = next.getAndIncrement()) {
+                    String raw = rawPasswords.get(index);
+                    hashes[index] = raw == null ? null : encoder.encode(raw);
+                }
+                return null;
+            }));
+        }
+        tasks.forEach(this::await);
+        return Arrays.asList(hashes);
+    }
+
+    /**
+     * Upgrades a stored value that can be rehashed without the raw password, i.e. a legacy plain-text
+     * value written before hashing was introduced. Anything else is returned unchanged.
+     */
+    public String upgrade(String storedPassword){
+        if (storedPassword == null || storedPassword.startsWith(PREFIX))
+            return storedPassword;
+        return hash(storedPassword);
+    }
+
+    public void shutdown(){
+        executor.shutdown();
+    }
+
+    private <T> Future<T> submit(Callable<T> task){
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            throw new ServiceUnavailableException("Password hashing capacity exceeded, retry later");
+        }
+    }
+
+    private <T> T await(Future<T> future){
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceUnavailableException("Password hashing interrupted");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
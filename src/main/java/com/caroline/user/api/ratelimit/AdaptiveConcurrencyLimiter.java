@@ -0,0 +1,85 @@
+package com.caroline.user.api.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global in-flight limit adjusted by AIMD on observed latency: each request completing under the threshold
+ * while the limit is in use grows it by 1/limit, a slower one shrinks it by the backoff ratio at most once
+ * per threshold window. All state is in atomics.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong limitBits;
+
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+                                      double backoffRatio){
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    public boolean tryAcquire(){
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit)
+                return false;
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    public void release(long latencyNanos){
+        int current = inFlight.getAndDecrement();
+        if (latencyNanos > latencyThresholdNanos)
+            decrease();
+        else if (current * 2 >= getLimit())
+            increase();
+    }
+
+    public int getLimit(){
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight(){
+        return inFlight.get();
+    }
+
+    private void increase(){
+        while (true) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            double next = Math.min(maxLimit, limit + 1 / limit);
+            if (next == limit || limitBits.compareAndSet(bits, Double.doubleToLongBits(next)))
+                return;
+        }
+    }
+
+    private void decrease(){
+        long now = System.nanoTime();
+        long last = lastDecrease.get();
+        if (now - last < latencyThresholdNanos || !lastDecrease.compareAndSet(last, now))
+            return;
+        while (true) {
+            long bits = limitBits.get();
+            double next = Math.max(minLimit, Double.longBitsToDouble(bits) * backoffRatio);
+            if (limitBits.compareAndSet(bits, Double.doubleToLongBits(next)))
+                return;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.caroline.user.api.ratelimit;
+
+import com.caroline.user.api.exception.ServiceUnavailableException;
+import com.caroline.user.api.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds load before any handler work: first the per client and endpoint token bucket (429), then the global
+ * adaptive concurrency limit (503). Handlers producing NDJSON stream on purpose for as long as the client
+ * reads, which would read as overload, so they only count against the token bucket. A permit taken by a
+ * request that goes async is released when its async dispatch completes. Clients are told apart by the remote address, which
+ * {@code server.forward-headers-strategy} resolves from the proxy's forwarded headers, or by a header the
+ * proxy sets, such as an API key, if one is configured.
+ */
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String PERMIT_START = RateLimitInterceptor.class.getName() + ".start";
+
+    private final TokenBucketRateLimiter rateLimiter;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final Counter rateRejected;
+
+    private final Counter concurrencyRejected;
+
+    private String clientHeader;
+
+    public RateLimitInterceptor(TokenBucketRateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                MeterRegistry registry){
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rateRejected = registry.counter("user.ratelimit.rejected", "reason", "rate");
+        this.concurrencyRejected = registry.counter("user.ratelimit.rejected", "reason", "concurrency");
+        Gauge.builder("user.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(registry);
+        Gauge.builder("user.concurrency.inflight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(registry);
+    }
+
+    public void setClientHeader(String clientHeader){
+        this.clientHeader = clientHeader == null || clientHeader.isBlank() ? null : clientHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC)
+            return true;
+
+        long waitNanos = rateLimiter.tryAcquire(clientKey(request));
+        if (waitNanos > 0) {
+            rateRejected.increment();
+            throw new TooManyRequestsException("Rate limit exceeded",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+
+        if (isStream(request))
+            return true;
+        if (!concurrencyLimiter.tryAcquire()) {
+            concurrencyRejected.increment();
+            throw new ServiceUnavailableException("Server is overloaded, retry later");
+        }
+        request.setAttribute(PERMIT_START, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(PERMIT_START);
+        if (start != null) {
+            request.removeAttribute(PERMIT_START);
+            concurrencyLimiter.release(System.nanoTime() - (Long) start);
+        }
+    }
+
+    private static boolean isStream(HttpServletRequest request){
+        Object producible = request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        return producible instanceof Collection && ((Collection<?>) producible).contains(MediaType.APPLICATION_NDJSON);
+    }
+
+    private String clientKey(HttpServletRequest request){
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String client = clientHeader == null ? null : request.getHeader(clientHeader);
+        return (client == null ? request.getRemoteAddr() : client) + ' ' + request.getMethod() + ' ' + pattern;
+    }
+}
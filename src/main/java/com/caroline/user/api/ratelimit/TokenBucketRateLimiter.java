@@ -0,0 +1,50 @@
+package com.caroline.user.api.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per key, implemented as GCRA: each bucket is a single AtomicLong holding the theoretical
+ * arrival time of the next request, advanced with a CAS, so acquiring never takes a lock. Idle buckets
+ * expire from a bounded Caffeine map.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long intervalNanos;
+
+    private final long toleranceNanos;
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, long maximumKeys){
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(intervalNanos * burst, TimeUnit.SECONDS.toNanos(1))))
+                .build();
+    }
+
+    /**
+     * Takes a token for the key.
+     *
+     * @return 0 if granted, otherwise the nanoseconds until a token will be available
+     */
+    public long tryAcquire(String key){
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival == Long.MIN_VALUE || arrival - now < 0 ? now : arrival;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0)
+                return wait;
+            if (bucket.compareAndSet(arrival, start + intervalNanos))
+                return 0;
+        }
+    }
+}
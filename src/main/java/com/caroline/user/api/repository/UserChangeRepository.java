@@ -0,0 +1,34 @@
+package com.caroline.user.api.repository;
+
+import com.caroline.user.api.model.DTO.UserChangeDTO;
+import com.caroline.user.api.model.entity.UserChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+
+    List<UserChange> findBySequenceIsNullOrderByIdAsc(Pageable pageable);
+
+    List<UserChange> findBySequenceIsNullAndUserIdIn(Collection<Integer> userIds);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.caroline.user.api.model.DTO.UserChangeDTO(c.sequence, c.type, c.userId, c.name, c.email, "
+            + "c.version, c.changedAt) from UserChange c where c.sequence > :since order by c.sequence")
+    List<UserChangeDTO> findViewsBySequenceGreaterThan(@Param("since") long since, Pageable pageable);
+
+    @Query("select max(c.sequence) from UserChange c")
+    Optional<Long> findMaxSequence();
+
+    @Modifying
+    @Query("delete from UserChange c where c.sequence < :below and c.changedAt < :before")
+    int deletePublished(@Param("below") long below, @Param("before") Instant before);
+}
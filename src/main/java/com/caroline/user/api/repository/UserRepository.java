@@ -1,10 +1,82 @@
 package com.caroline.user.api.repository;
 
+import com.caroline.user.api.model.DTO.UserDTO;
 import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.projection.UserVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
-    boolean existsByEmailAndIdNot (String email, Integer id);
-}
\ No newline at end of file
+
+    int EXPORT_FETCH_SIZE = 1000;
+
+    @Transactional(readOnly = true)
+    @Query("select new com.caroline.user.api.model.DTO.UserDTO(u.id, u.name, u.email, u.version) from User u where u.id = :id")
+    Optional<UserDTO> findViewById(@Param("id") Integer id);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.caroline.user.api.model.DTO.UserDTO(u.id, u.name, u.email, u.version) from User u "
+            + "where u.id > :id order by u.id")
+    List<UserDTO> findViewsByIdGreaterThan(@Param("id") Integer id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Integer id);
+
+    @Transactional(readOnly = true)
+    @Query("select u.id as id, u.version as version from User u where u.id > :id order by u.id")
+    List<UserVersion> findVersionsByIdGreaterThan(@Param("id") Integer id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("select new com.caroline.user.api.model.DTO.UserDTO(u.id, u.name, u.email, u.version) from User u order by u.id")
+    Stream<UserDTO> streamAllViews();
+
+    List<EmailOwner> findByEmailIn(Collection<String> emails);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Integer> findIdsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Deletes by tombstoning: one conditional update, which also frees the email for new registrations.
+     * Returns how many of {@code ids} were live.
+     */
+    @Modifying
+    @Query("update User u set u.deletedAt = :at, u.email = null, u.version = u.version + 1 "
+            + "where u.id in :ids and u.deletedAt is null")
+    int tombstone(@Param("ids") Collection<Integer> ids, @Param("at") Instant at);
+
+    @Query(value = "select id, version from " + User.TABLE + " where id in :ids and deleted_at is not null",
+            nativeQuery = true)
+    List<UserVersion> findTombstoneVersions(@Param("ids") Collection<Integer> ids);
+
+    // tombstones are invisible to JPQL on User, so the compactor goes through SQL, walking the primary key;
+    // the not-null test spells out the predicate of the partial tombstone index
+    @Query(value = "select id from " + User.TABLE + " where deleted_at is not null and id > :after "
+            + "and deleted_at < :before order by id limit :limit",
+            nativeQuery = true)
+    List<Integer> findTombstoneIds(@Param("after") int after, @Param("before") Instant before,
+                                   @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "delete from " + User.TABLE + " where id in :ids and deleted_at is not null", nativeQuery = true)
+    int purgeTombstones(@Param("ids") Collection<Integer> ids);
+
+    interface EmailOwner {
+
+        Integer getId();
+
+        String getEmail();
+    }
+}
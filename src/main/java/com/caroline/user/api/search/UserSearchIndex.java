@@ -0,0 +1,192 @@
+package com.caroline.user.api.search;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process search over user name and email, kept up to date by the service on every write.
+ * Prefix queries walk a sorted term map; substring queries (3+ characters) start from the smallest
+ * trigram posting list and verify candidates, so neither scans every user. Reads are lock-free,
+ * writes are serialized.
+ * <p>
+ * Until {@link #loaded()}, ids removed are remembered so that the startup load, which may have read a user
+ * before it was deleted, cannot put it back.
+ */
+public class UserSearchIndex {
+
+    public static final int GRAM = 3;
+
+    private final Map<Integer, UserDTO> users = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListMap<String, Set<Integer>> terms = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Set<Integer>> trigrams = new ConcurrentHashMap<>();
+
+    private Set<Integer> removedWhileLoading = new HashSet<>();
+
+    public void bindTo(MeterRegistry registry){
+        Gauge.builder("user.search.index.size", users, Map::size).register(registry);
+    }
+
+    /**
+     * Indexes a user view, replacing the previous one unless that is already of a newer version.
+     */
+    public synchronized void put(UserDTO user){
+        if (removedWhileLoading != null)
+            removedWhileLoading.remove(user.getId());
+        UserDTO previous = users.get(user.getId());
+        if (previous != null) {
+            if (isNewer(previous, user))
+                return;
+            unindex(previous);
+        }
+        users.put(user.getId(), user);
+        index(user);
+    }
+
+    /**
+     * Indexes a user view read by the startup load, unless the user was removed since.
+     */
+    public synchronized void load(UserDTO user){
+        if (removedWhileLoading == null || !removedWhileLoading.contains(user.getId()))
+            put(user);
+    }
+
+    public synchronized void loaded(){
+        removedWhileLoading = null;
+    }
+
+    public synchronized void remove(Integer id){
+        if (removedWhileLoading != null)
+            removedWhileLoading.add(id);
+        UserDTO previous = users.remove(id);
+        if (previous != null)
+            unindex(previous);
+    }
+
+    public int size(){
+        return users.size();
+    }
+
+    /**
+     * Users whose name or email starts with the query, followed by users containing it, at most {@code limit}.
+     */
+    public List<UserDTO> search(String query, int limit){
+        String q = normalize(query);
+        Set<Integer> hits = new LinkedHashSet<>();
+        if (q.isEmpty() || limit <= 0)
+            return List.of();
+
+        for (Set<Integer> ids : terms.subMap(q, true, q + Character.MAX_VALUE, false).values()) {
+            for (Integer id : ids) {
+                if (hits.add(id) && hits.size() == limit)
+                    return views(hits);
+            }
+        }
+
+        if (q.length() >= GRAM) {
+            List<Set<Integer>> postings = postings(q);
+            if (!postings.isEmpty()) {
+                for (Integer id : postings.get(0)) {
+                    if (inAll(postings, id) && contains(users.get(id), q) && hits.add(id) && hits.size() == limit)
+                        break;
+                }
+            }
+        }
+        return views(hits);
+    }
+
+    /**
+     * Posting lists of every trigram in the query, smallest first, or none if any trigram is unknown.
+     */
+    private List<Set<Integer>> postings(String q){
+        List<Set<Integer>> result = new ArrayList<>();
+        for (String gram : grams(q)) {
+            Set<Integer> ids = trigrams.get(gram);
+            if (ids == null)
+                return List.of();
+            result.add(ids);
+        }
+        result.sort(Comparator.comparingInt(Set::size));
+        return result;
+    }
+
+    private static boolean inAll(List<Set<Integer>> postings, Integer id){
+        for (int i = 1; i < postings.size(); i++)
+            if (!postings.get(i).contains(id))
+                return false;
+        return true;
+    }
+
+    private List<UserDTO> views(Set<Integer> ids){
+        List<UserDTO> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            UserDTO user = users.get(id);
+            if (user != null)
+                result.add(user);
+        }
+        return result;
+    }
+
+    private void index(UserDTO user){
+        termsOf(user).forEach(term -> terms.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(user.getId()));
+        gramsOf(user).forEach(gram -> trigrams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(user.getId()));
+    }
+
+    private void unindex(UserDTO user){
+        termsOf(user).forEach(term -> removeFrom(terms, term, user.getId()));
+        gramsOf(user).forEach(gram -> removeFrom(trigrams, gram, user.getId()));
+    }
+
+    private static void removeFrom(Map<String, Set<Integer>> postings, String key, Integer id){
+        Set<Integer> ids = postings.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty())
+            postings.remove(key);
+    }
+
+    private static Set<String> termsOf(UserDTO user){
+        Set<String> result = new HashSet<>();
+        String name = normalize(user.getName());
+        if (!name.isEmpty()) {
+            result.add(name);
+            for (String token : name.split("\\s+"))
+                if (!token.isEmpty())
+                    result.add(token);
+        }
+        String email = normalize(user.getEmail());
+        if (!email.isEmpty())
+            result.add(email);
+        return result;
+    }
+
+    private static Set<String> gramsOf(UserDTO user){
+        Set<String> result = new HashSet<>(grams(normalize(user.getName())));
+        result.addAll(grams(normalize(user.getEmail())));
+        return result;
+    }
+
+    private static Set<String> grams(String value){
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++)
+            result.add(value.substring(i, i + GRAM));
+        return result;
+    }
+
+    private static boolean contains(UserDTO user, String q){
+        return user != null && (normalize(user.getName()).contains(q) || normalize(user.getEmail()).contains(q));
+    }
+
+    private static boolean isNewer(UserDTO current, UserDTO candidate){
+        return current.getVersion() != null && candidate.getVersion() != null
+                && current.getVersion() > candidate.getVersion();
+    }
+
+    private static String normalize(String value){
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,135 @@
+package com.caroline.user.api.service;
+
+import com.caroline.user.api.model.DTO.BatchItemResult;
+import com.caroline.user.api.model.DTO.ImportProgress;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.mapper.UserCsv;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads users line by line and creates them through {@link UserService#createAll} in chunks, so memory stays
+ * bounded by the chunk size whatever the input length. Errors are reported per input line (1-based); a CSV
+ * record spanning several lines is reported at its first line. A CSV record is cut off at
+ * {@link #MAX_RECORD_LINES} lines or {@link #MAX_RECORD_LENGTH} characters, so an unterminated quote cannot
+ * swallow the rest of the input.
+ */
+@Component
+public class UserImporter {
+
+    public static final int CHUNK_SIZE = 1000;
+
+    public static final int MAX_RECORD_LINES = 100;
+
+    public static final int MAX_RECORD_LENGTH = 8 * 1024;
+
+    public interface Listener {
+
+        void onError(BatchItemResult error) throws IOException;
+
+        void onProgress(ImportProgress progress) throws IOException;
+    }
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public ImportProgress importNdjson(BufferedReader reader, Listener listener) throws IOException {
+        return importLines(reader, false, listener);
+    }
+
+    public ImportProgress importCsv(BufferedReader reader, Listener listener) throws IOException {
+        return importLines(reader, true, listener);
+    }
+
+    private ImportProgress importLines(BufferedReader reader, boolean csv, Listener listener) throws IOException {
+        List<UserDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+        int[] chunkLines = new int[CHUNK_SIZE];
+        String[] header = null;
+        long created = 0;
+        long failed = 0;
+        int lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank())
+                continue;
+            int recordLine = lineNumber;
+            if (csv) {
+                StringBuilder record = new StringBuilder(line);
+                boolean quoted = UserCsv.togglesQuote(line);
+                int lines = 1;
+                String next = line;
+                while (quoted && lines < MAX_RECORD_LINES && record.length() <= MAX_RECORD_LENGTH
+                        && (next = reader.readLine()) != null) {
+                    lineNumber++;
+                    lines++;
+                    record.append('\n').append(next);
+                    quoted ^= UserCsv.togglesQuote(next);
+                }
+                // most likely a stray quote: give up on the record and carry on with the next line
+                if (quoted && next != null) {
+                    failed++;
+                    listener.onError(new BatchItemResult(recordLine, null, HttpStatus.BAD_REQUEST.value(),
+                            "CSV record exceeds " + MAX_RECORD_LINES + " lines or " + MAX_RECORD_LENGTH + " characters"));
+                    continue;
+                }
+                line = record.toString();
+            }
+            try {
+                if (csv && header == null) {
+                    header = UserCsv.parse(line);
+                    continue;
+                }
+                chunk.add(csv ? UserCsv.read(header, UserCsv.parse(line)) : objectMapper.readValue(line, UserDTO.class));
+            } catch (JsonProcessingException | IllegalArgumentException ex) {
+                failed++;
+                listener.onError(new BatchItemResult(recordLine, null, HttpStatus.BAD_REQUEST.value(),
+                        csv ? "Malformed CSV record" : "Malformed JSON"));
+                continue;
+            }
+            chunkLines[chunk.size() - 1] = recordLine;
+
+            if (chunk.size() == CHUNK_SIZE) {
+                int ok = flush(chunk, chunkLines, listener);
+                created += ok;
+                failed += CHUNK_SIZE - ok;
+                listener.onProgress(new ImportProgress(lineNumber, created, failed, false));
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            int size = chunk.size();
+            int ok = flush(chunk, chunkLines, listener);
+            created += ok;
+            failed += size - ok;
+        }
+        ImportProgress summary = new ImportProgress(lineNumber, created, failed, true);
+        listener.onProgress(summary);
+        return summary;
+    }
+
+    private int flush(List<UserDTO> chunk, int[] chunkLines, Listener listener) throws IOException {
+        int ok = 0;
+        for (BatchItemResult result : service.createAll(chunk)) {
+            if (result.getStatus() == HttpStatus.CREATED.value())
+                ok++;
+            else
+                listener.onError(new BatchItemResult(chunkLines[result.getIndex()], null, result.getStatus(),
+                        result.getError()));
+        }
+        chunk.clear();
+        return ok;
+    }
+}
@@ -1,19 +1,47 @@
 package com.caroline.user.api.service;
 
+import com.caroline.user.api.model.DTO.BatchItemResult;
 import com.caroline.user.api.model.DTO.UserDTO;
 import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.projection.UserVersion;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService{
 
     User findById(Integer id);
 
-    List<User> findAll();
+    UserDTO findViewById(Integer id);
+
+    List<UserDTO> findPage(Integer afterId, int size);
+
+    Long findVersionById(Integer id);
+
+    List<UserVersion> findPageVersions(Integer afterId, int size);
+
+    List<UserDTO> search(String query, int limit);
+
+    void exportViews(Consumer<UserDTO> sink);
 
     User create(UserDTO userDTO);
 
     User update(UserDTO userDTO);
 
     void delete(Integer id);
+
+    List<BatchItemResult> createAll(List<UserDTO> users);
+
+    /**
+     * Items carrying a version are only applied if the user is still at that version.
+     */
+    List<BatchItemResult> updateAll(List<UserDTO> users);
+
+    /**
+     * Like {@link #updateAll} for users whose passwords were already encoded by the
+     * {@link com.caroline.user.api.password.PasswordHasher}, e.g. when replaying queued writes.
+     */
+    List<BatchItemResult> updateAllEncoded(List<UserDTO> users);
+
+    List<BatchItemResult> deleteAll(List<Integer> ids);
 }
@@ -1,15 +1,34 @@
 package com.caroline.user.api.service;
 
+import com.caroline.user.api.cache.UserCache;
 import com.caroline.user.api.exception.DataIntegrityViolationException;
+import com.caroline.user.api.invalidation.UserChangedEvent;
 import com.caroline.user.api.exception.NotFoundException;
+import com.caroline.user.api.exception.PreconditionFailedException;
+import com.caroline.user.api.model.DTO.BatchItemResult;
 import com.caroline.user.api.model.DTO.UserDTO;
 import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.mapper.UserMapper;
+import com.caroline.user.api.model.projection.UserVersion;
+import com.caroline.user.api.password.PasswordHasher;
 import com.caroline.user.api.repository.UserRepository;
-import org.modelmapper.ModelMapper;
+import com.caroline.user.api.search.UserSearchIndex;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserServiceImpl implements UserService{
@@ -18,39 +37,287 @@ public class UserServiceImpl implements UserService{
     private UserRepository repository;
 
     @Autowired
-    private ModelMapper mapper;
+    private UserMapper mapper;
+
+    @Autowired
+    private UserCache cache;
+
+    @Autowired
+    private PasswordHasher hasher;
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Override
     public User findById(Integer id) {
         return repository.findById(id).orElseThrow(() -> new NotFoundException("User not found"));
     }
 
+    /**
+     * Deliberately not transactional: cache hits need no transaction and the repository read is read-only itself.
+     */
+    @Override
+    public UserDTO findViewById(Integer id) {
+        return cache.findById(id).orElseGet(() -> {
+            long readStamp = cache.readStamp();
+            UserDTO user = repository.findViewById(id).orElseThrow(() -> new NotFoundException("User not found"));
+            cache.putLoaded(user, readStamp);
+            return user;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> findPage(Integer afterId, int size) {
+        return repository.findViewsByIdGreaterThan(afterId == null ? 0 : afterId, PageRequest.of(0, size));
+    }
+
+    @Override
+    public Long findVersionById(Integer id) {
+        return cache.findById(id).map(UserDTO::getVersion)
+                .orElseGet(() -> repository.findVersionById(id).orElseThrow(() -> new NotFoundException("User not found")));
+    }
+
     @Override
-    public List<User> findAll() {
-        return repository.findAll();
+    public List<UserVersion> findPageVersions(Integer afterId, int size) {
+        return repository.findVersionsByIdGreaterThan(afterId == null ? 0 : afterId, PageRequest.of(0, size));
     }
 
     @Override
+    public List<UserDTO> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportViews(Consumer<UserDTO> sink) {
+        try (Stream<UserDTO> users = repository.streamAllViews()) {
+            users.forEach(sink);
+        }
+    }
+
+    @Override
+    @Transactional
     public User create(UserDTO userDTO) {
-        userDTO.setId(0); //deveria validar se o Id já não existe, fiz isso para não ficar muito diferente do instrutor
-        validateExistsByEmail(userDTO);
-        return repository.save(mapper.map(userDTO, User.class));
+        userDTO.setId(null); //deveria validar se o Id já não existe, fiz isso para não ficar muito diferente do instrutor
+        userDTO.setPassword(hasher.hash(userDTO.getPassword()));
+        User user = saveUniqueEmail(mapper.toEntity(userDTO));
+        events.publishEvent(UserChangedEvent.changed(mapper.toView(user)));
+        return user;
     }
 
     @Override
+    @Transactional
     public User update(UserDTO userDTO) {
-        validateExistsByEmail(userDTO);
-        return repository.save(mapper.map(userDTO, User.class));
+        String password = hasher.hash(userDTO.getPassword());
+        User user = findById(userDTO.getId());
+        if (userDTO.getVersion() != null && !userDTO.getVersion().equals(user.getVersion()))
+            throw new PreconditionFailedException("User was modified by another request");
+        user.setName(userDTO.getName());
+        user.setEmail(userDTO.getEmail());
+        user.setPassword(password != null ? password : hasher.upgrade(user.getPassword()));
+        cache.evict(user.getId());
+        user = saveUniqueEmail(user);
+        events.publishEvent(UserChangedEvent.changed(mapper.toView(user)));
+        return user;
     }
 
     @Override
+    @Transactional
     public void delete(Integer id) {
-        findById(id);
-        repository.deleteById(id);
+        if (repository.tombstone(List.of(id), Instant.now()) == 0)
+            throw new NotFoundException("User not found");
+        events.publishEvent(UserChangedEvent.deleted(repository.findTombstoneVersions(List.of(id))));
+    }
+
+    /**
+     * The email pre-check cannot see writers committing after it, so the batch runs in its own transaction and,
+     * if the unique index still rejects it, each item is retried in one of its own.
+     */
+    @Override
+    public List<BatchItemResult> createAll(List<UserDTO> users) {
+        List<String> passwords = hasher.hashAll(passwordsOf(users));
+        return inBatchOrEach(users, passwords, this::createAll);
+    }
+
+    private List<BatchItemResult> createAll(List<UserDTO> users, List<String> passwords) {
+        Set<String> taken = new HashSet<>();
+        repository.findByEmailIn(emailsOf(users)).forEach(owner -> taken.add(owner.getEmail()));
+
+        BatchItemResult[] results = new BatchItemResult[users.size()];
+        List<User> toSave = new ArrayList<>(users.size());
+        List<Integer> indexes = new ArrayList<>(users.size());
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < users.size(); i++) {
+            UserDTO userDTO = users.get(i);
+            String email = userDTO.getEmail();
+            if (email != null && (taken.contains(email) || !seen.add(email))) {
+                results[i] = emailAlreadyRegistered(i, null);
+                continue;
+            }
+            userDTO.setId(null);
+            userDTO.setPassword(passwords.get(i));
+            toSave.add(mapper.toEntity(userDTO));
+            indexes.add(i);
+        }
+
+        List<User> saved = repository.saveAll(toSave);
+        repository.flush();
+        List<UserDTO> views = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            User user = saved.get(i);
+            results[indexes.get(i)] = new BatchItemResult(indexes.get(i), user.getId(), HttpStatus.CREATED.value(), null);
+            views.add(mapper.toView(user));
+        }
+        events.publishEvent(UserChangedEvent.changed(views));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Transactional like {@link #createAll}.
+     */
+    @Override
+    public List<BatchItemResult> updateAll(List<UserDTO> users) {
+        return inBatchOrEach(users, hasher.hashAll(passwordsOf(users)), this::updateAll);
+    }
+
+    @Override
+    public List<BatchItemResult> updateAllEncoded(List<UserDTO> users) {
+        return inBatchOrEach(users, passwordsOf(users), this::updateAll);
+    }
+
+    private List<BatchItemResult> updateAll(List<UserDTO> users, List<String> passwords) {
+        Map<Integer, User> existing = new HashMap<>();
+        List<Integer> ids = users.stream().map(UserDTO::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        repository.findAllById(ids).forEach(user -> existing.put(user.getId(), user));
+
+        Map<String, Integer> owners = new HashMap<>();
+        repository.findByEmailIn(emailsOf(users)).forEach(owner -> owners.put(owner.getEmail(), owner.getId()));
+
+        List<BatchItemResult> results = new ArrayList<>(users.size());
+        List<User> updated = new ArrayList<>(users.size());
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < users.size(); i++) {
+            UserDTO userDTO = users.get(i);
+            User user = existing.get(userDTO.getId());
+            String email = userDTO.getEmail();
+            if (user == null) {
+                results.add(new BatchItemResult(i, userDTO.getId(), HttpStatus.NOT_FOUND.value(), "User not found"));
+            } else if (userDTO.getVersion() != null && !userDTO.getVersion().equals(user.getVersion())) {
+                results.add(new BatchItemResult(i, user.getId(), HttpStatus.PRECONDITION_FAILED.value(),
+                        "User was modified by another request"));
+            } else if (email != null && (!seen.add(email)
+                    || (owners.containsKey(email) && !owners.get(email).equals(user.getId())))) {
+                results.add(emailAlreadyRegistered(i, user.getId()));
+            } else {
+                user.setName(userDTO.getName());
+                user.setEmail(email);
+                user.setPassword(passwords.get(i) != null ? passwords.get(i) : hasher.upgrade(user.getPassword()));
+                updated.add(user);
+                results.add(new BatchItemResult(i, user.getId(), HttpStatus.OK.value(), null));
+            }
+        }
+
+        repository.flush();
+        updated.forEach(user -> cache.evict(user.getId()));
+        events.publishEvent(UserChangedEvent.changed(updated.stream().map(mapper::toView).collect(Collectors.toList())));
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BatchItemResult> deleteAll(List<Integer> ids) {
+        Set<Integer> found = new HashSet<>(repository.findIdsByIdIn(ids));
+        List<UserVersion> tombstones = List.of();
+        if (!found.isEmpty()) {
+            repository.tombstone(found, Instant.now());
+            tombstones = repository.findTombstoneVersions(found);
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Integer id = ids.get(i);
+            if (found.contains(id)) {
+                results.add(new BatchItemResult(i, id, HttpStatus.NO_CONTENT.value(), null));
+            } else {
+                results.add(new BatchItemResult(i, id, HttpStatus.NOT_FOUND.value(), "User not found"));
+            }
+        }
+        events.publishEvent(UserChangedEvent.deleted(tombstones));
+        return results;
+    }
+
+    private Set<String> emailsOf(List<UserDTO> users){
+        return users.stream().map(UserDTO::getEmail).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private List<String> passwordsOf(List<UserDTO> users){
+        return users.stream().map(UserDTO::getPassword).collect(Collectors.toList());
+    }
+
+    private BatchItemResult emailAlreadyRegistered(int index, Integer id){
+        return new BatchItemResult(index, id, HttpStatus.BAD_REQUEST.value(), "Email already registered");
+    }
+
+    /**
+     * Writes the batch in one transaction. Should the unique email index reject it, only some items can be at
+     * fault, so each is written again in a transaction of its own and those still rejected are reported as taken.
+     */
+    private List<BatchItemResult> inBatchOrEach(List<UserDTO> users, List<String> passwords,
+                                                BiFunction<List<UserDTO>, List<String>, List<BatchItemResult>> write) {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        try {
+            return transactions.execute(status -> write.apply(users, passwords));
+        } catch (org.springframework.dao.DataIntegrityViolationException ex) {
+            if (!violatesUniqueEmail(ex))
+                throw ex;
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            UserDTO user = users.get(i);
+            List<String> password = Collections.singletonList(passwords.get(i));
+            BatchItemResult result;
+            try {
+                result = transactions.execute(status -> write.apply(List.of(user), password)).get(0);
+            } catch (org.springframework.dao.DataIntegrityViolationException ex) {
+                if (!violatesUniqueEmail(ex))
+                    throw ex;
+                result = emailAlreadyRegistered(0, user.getId());
+            }
+            results.add(new BatchItemResult(i, result.getId(), result.getStatus(), result.getError()));
+        }
+        return results;
+    }
+
+    /**
+     * Relies on the unique index instead of a pre-check query, so concurrent writers cannot both claim an email.
+     */
+    private User saveUniqueEmail(User user){
+        try {
+            return repository.saveAndFlush(user);
+        } catch (org.springframework.dao.DataIntegrityViolationException ex) {
+            if (violatesUniqueEmail(ex))
+                throw new DataIntegrityViolationException("Email already registered");
+            throw ex;
+        }
     }
 
-    private void validateExistsByEmail(UserDTO userDTO){
-        if (repository.existsByEmailAndIdNot(userDTO.getEmail(), userDTO.getId()))
-            throw new DataIntegrityViolationException("Email already registered");
+    private boolean violatesUniqueEmail(Throwable ex){
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraint = ((ConstraintViolationException) cause).getConstraintName();
+                return constraint != null && constraint.toLowerCase().contains(User.EMAIL_CONSTRAINT);
+            }
+        }
+        return false;
     }
 }
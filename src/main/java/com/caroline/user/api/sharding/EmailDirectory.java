@@ -0,0 +1,248 @@
+package com.caroline.user.api.sharding;
+
+import com.caroline.user.api.model.entity.User;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The email to user id index for all shards, kept in one database so that checking an email is a single
+ * lookup whichever shard owns it. Each shard's unique constraint only sees its own users; this table's
+ * primary key is what keeps emails unique across shards.
+ * <p>
+ * Every call commits on its own, never inside a shard's transaction. A new user's email is reserved before
+ * the user is created and bound to the new id afterwards; an update claims the email for the user's id up
+ * front and releases the previous one once the shard committed; a delete releases the user's email after
+ * the shard committed. A node dying in between leaves entries behind that no shard agrees with: a
+ * reservation never bound, a claim for an update that never happened, an email its user no longer has.
+ * So when an entry older than {@link #RESERVATION_TIMEOUT} stands in someone else's way, the shards decide:
+ * it is bound to the user a shard has the email for, or dropped if none has.
+ */
+public class EmailDirectory {
+
+    public enum Claim { NEW, OWNED, TAKEN }
+
+    public static final Duration RESERVATION_TIMEOUT = Duration.ofMinutes(1);
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    private final TransactionTemplate transactions;
+
+    private final List<NamedParameterJdbcTemplate> shards;
+
+    /**
+     * @param dataSource where the directory lives
+     * @param shards all shards, {@code dataSource}'s included, to resolve stale reservations against
+     */
+    public EmailDirectory(DataSource dataSource, List<? extends DataSource> shards){
+        this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+        this.transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.shards = shards.stream().map(NamedParameterJdbcTemplate::new).collect(Collectors.toList());
+    }
+
+    public void start(){
+        transactions.executeWithoutResult(status -> {
+            jdbc.getJdbcOperations().execute("create table if not exists user_email (email varchar(255) not null primary key, "
+                    + "user_id integer, reserved_at timestamp not null)");
+            jdbc.getJdbcOperations().execute("create index if not exists ix_user_email_user_id on user_email (user_id)");
+        });
+    }
+
+    /**
+     * Reserves the emails nobody holds, and returns them.
+     */
+    public Set<String> reserve(Collection<String> emails){
+        if (emails.isEmpty())
+            return Set.of();
+        return inTransaction(() -> reserveFree(emails), () -> {
+            Set<String> reserved = new HashSet<>();
+            for (String email : emails)
+                reserved.addAll(inTransaction(() -> reserveFree(List.of(email)), Set::of));
+            return reserved;
+        });
+    }
+
+    public void bind(Map<String, Integer> owners){
+        if (owners.isEmpty())
+            return;
+        transactions.executeWithoutResult(status -> jdbc.batchUpdate(
+                "update user_email set user_id = :userId where email = :email", entries(owners)));
+    }
+
+    /**
+     * Drops reservations that will not be bound, e.g. because creating the user failed.
+     */
+    public void unreserve(Collection<String> emails){
+        if (emails.isEmpty())
+            return;
+        transactions.executeWithoutResult(status -> jdbc.update(
+                "delete from user_email where email in (:emails) and user_id is null", Map.of("emails", emails)));
+    }
+
+    /**
+     * Claims each email for its user id: {@link Claim#NEW} if it was free and is now the user's,
+     * {@link Claim#OWNED} if the user already had it, {@link Claim#TAKEN} if someone else holds it.
+     */
+    public Map<String, Claim> claim(Map<String, Integer> owners){
+        if (owners.isEmpty())
+            return Map.of();
+        return inTransaction(() -> claimFree(owners), () -> {
+            Map<String, Claim> claims = new HashMap<>();
+            owners.forEach((email, id) -> claims.putAll(inTransaction(() -> claimFree(Map.of(email, id)),
+                    () -> Map.of(email, Claim.TAKEN))));
+            return claims;
+        });
+    }
+
+    /**
+     * Gives back new claims whose update did not go through.
+     */
+    public void release(Map<String, Integer> owners){
+        if (owners.isEmpty())
+            return;
+        transactions.executeWithoutResult(status -> jdbc.batchUpdate(
+                "delete from user_email where email = :email and user_id = :userId", entries(owners)));
+    }
+
+    /**
+     * Releases every email of each user but its current one, which may be null.
+     */
+    public void keepOnly(Map<Integer, String> emailsByUser){
+        if (emailsByUser.isEmpty())
+            return;
+        List<SqlParameterSource> changed = new ArrayList<>();
+        List<Integer> cleared = new ArrayList<>();
+        emailsByUser.forEach((id, email) -> {
+            if (email == null)
+                cleared.add(id);
+            else
+                changed.add(new MapSqlParameterSource("userId", id).addValue("email", email));
+        });
+        transactions.executeWithoutResult(status -> {
+            if (!changed.isEmpty())
+                jdbc.batchUpdate("delete from user_email where user_id = :userId and email <> :email",
+                        changed.toArray(new SqlParameterSource[0]));
+            if (!cleared.isEmpty())
+                jdbc.update("delete from user_email where user_id in (:ids)", Map.of("ids", cleared));
+        });
+    }
+
+    public void releaseUsers(Collection<Integer> ids){
+        if (ids.isEmpty())
+            return;
+        transactions.executeWithoutResult(status ->
+                jdbc.update("delete from user_email where user_id in (:ids)", Map.of("ids", ids)));
+    }
+
+    private Set<String> reserveFree(Collection<String> emails){
+        Instant now = Instant.now();
+        Map<String, Integer> claimants = new HashMap<>();
+        emails.forEach(email -> claimants.put(email, null));
+        resolveStale(claimants, now);
+        Set<String> free = new LinkedHashSet<>(emails);
+        free.removeAll(jdbc.queryForList("select email from user_email where email in (:emails)",
+                Map.of("emails", emails), String.class));
+        Map<String, Integer> reservations = new HashMap<>();
+        free.forEach(email -> reservations.put(email, null));
+        insert(reservations, now);
+        return free;
+    }
+
+    private Map<String, Claim> claimFree(Map<String, Integer> owners){
+        Instant now = Instant.now();
+        resolveStale(owners, now);
+        Map<String, Integer> current = new HashMap<>();
+        jdbc.query("select email, user_id from user_email where email in (:emails)", Map.of("emails", owners.keySet()),
+                row -> { current.put(row.getString("email"), (Integer) row.getObject("user_id")); });
+
+        Map<String, Claim> claims = new HashMap<>();
+        Map<String, Integer> free = new HashMap<>();
+        owners.forEach((email, id) -> {
+            if (!current.containsKey(email)) {
+                free.put(email, id);
+                claims.put(email, Claim.NEW);
+            } else {
+                claims.put(email, id.equals(current.get(email)) ? Claim.OWNED : Claim.TAKEN);
+            }
+        });
+        insert(free, now);
+        return claims;
+    }
+
+    /**
+     * Checks entries older than {@link #RESERVATION_TIMEOUT} that are in the way of the claimants, i.e. not
+     * already theirs, against the shards, which have the final say: the node may have died after a shard
+     * committed but before the directory caught up, or before a failed write was undone. The rows stay locked
+     * until the caller's transaction ends.
+     */
+    private void resolveStale(Map<String, Integer> claimants, Instant now){
+        Map<String, Integer> stale = new HashMap<>();
+        jdbc.query("select email, user_id from user_email where email in (:emails) and reserved_at < :stale for update",
+                new MapSqlParameterSource("emails", claimants.keySet())
+                        .addValue("stale", Timestamp.from(now.minus(RESERVATION_TIMEOUT))),
+                row -> { stale.put(row.getString("email"), (Integer) row.getObject("user_id")); });
+        stale.entrySet().removeIf(entry -> entry.getValue() != null
+                && entry.getValue().equals(claimants.get(entry.getKey())));
+        if (stale.isEmpty())
+            return;
+
+        Map<String, Integer> owners = findOwners(stale.keySet());
+        Map<String, Integer> rebound = new HashMap<>(owners);
+        rebound.entrySet().removeIf(owner -> owner.getValue().equals(stale.get(owner.getKey())));
+        if (!rebound.isEmpty())
+            jdbc.batchUpdate("update user_email set user_id = :userId where email = :email", entries(rebound));
+        Set<String> orphaned = new HashSet<>(stale.keySet());
+        orphaned.removeAll(owners.keySet());
+        if (!orphaned.isEmpty())
+            jdbc.update("delete from user_email where email in (:emails)", Map.of("emails", orphaned));
+    }
+
+    private Map<String, Integer> findOwners(Collection<String> emails){
+        Map<String, Integer> owners = new HashMap<>();
+        for (NamedParameterJdbcTemplate shard : shards)
+            shard.query("select id, email from " + User.TABLE + " where email in (:emails)", Map.of("emails", emails),
+                    row -> { owners.put(row.getString("email"), row.getInt("id")); });
+        return owners;
+    }
+
+    private void insert(Map<String, Integer> owners, Instant now){
+        if (owners.isEmpty())
+            return;
+        Timestamp reservedAt = Timestamp.from(now);
+        SqlParameterSource[] rows = Arrays.stream(entries(owners))
+                .map(row -> ((MapSqlParameterSource) row).addValue("reservedAt", reservedAt))
+                .toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate("insert into user_email (email, user_id, reserved_at) values (:email, :userId, :reservedAt)", rows);
+    }
+
+    private static SqlParameterSource[] entries(Map<String, Integer> owners){
+        return owners.entrySet().stream()
+                .map(owner -> new MapSqlParameterSource("email", owner.getKey())
+                        .addValue("userId", owner.getValue(), Types.INTEGER))
+                .toArray(SqlParameterSource[]::new);
+    }
+
+    /**
+     * Runs {@code work} in its own transaction; if another node inserted one of the same emails concurrently
+     * the whole transaction rolls back and {@code fallback} decides instead.
+     */
+    private <T> T inTransaction(Supplier<T> work, Supplier<T> fallback){
+        try {
+            return transactions.execute(status -> work.get());
+        } catch (DataIntegrityViolationException ex) {
+            return fallback.get();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.caroline.user.api.sharding;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits the positive id space into one contiguous range per shard. Every shard allocates ids from its own
+ * sequence, started at the beginning of its range, so the id alone tells where a user lives, and a shard
+ * holds the users of its range in id order: walking the shards in order walks all users in id order.
+ * <p>
+ * The range size must never change once ids were handed out, or ids would move between shards; a fixed size,
+ * rather than one derived from the shard count, is what lets shards be added later.
+ */
+public class IdRangeShardRouter {
+
+    private final int shards;
+
+    private final int rangeSize;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public IdRangeShardRouter(int shards, int rangeSize){
+        if (shards < 1)
+            throw new IllegalArgumentException("At least one shard is required");
+        if (rangeSize < 1 || (long) shards * rangeSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(shards + " ranges of " + rangeSize + " ids do not fit in an int");
+        this.shards = shards;
+        this.rangeSize = rangeSize;
+    }
+
+    public int getShards(){
+        return shards;
+    }
+
+    public int getRangeSize(){
+        return rangeSize;
+    }
+
+    public int shardOf(Integer id){
+        if (id == null || id < 1)
+            return 0;
+        return Math.min((id - 1) / rangeSize, shards - 1);
+    }
+
+    /**
+     * The lowest id of {@code shard}'s range.
+     */
+    public int rangeStart(int shard){
+        return shard * rangeSize + 1;
+    }
+
+    /**
+     * Where to place a new user: shards take turns, so they fill evenly.
+     */
+    public int nextShard(){
+        return Math.floorMod(next.getAndIncrement(), shards);
+    }
+}
@@ -0,0 +1,64 @@
+package com.caroline.user.api.sharding;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread works on, read by {@link ShardRoutingDataSource} when a connection is taken.
+ * Outside a scope connections go to shard 0. A transaction keeps the connection it started with, so a scope
+ * must be entered before the transaction begins and cannot switch shards inside one.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext(){
+    }
+
+    public static Integer current(){
+        return CURRENT.get();
+    }
+
+    /**
+     * Routes the current thread to {@code shard} until the returned scope is closed, which restores the
+     * previous shard.
+     */
+    public static Scope enter(int shard){
+        Integer previous = CURRENT.get();
+        if (!Objects.equals(previous, shard) && TransactionSynchronizationManager.isActualTransactionActive())
+            throw new IllegalStateException("Cannot switch to shard " + shard + " inside a transaction");
+        CURRENT.set(shard);
+        return new Scope(previous);
+    }
+
+    public static <T> T call(int shard, Supplier<T> work){
+        try (Scope scope = enter(shard)) {
+            return work.get();
+        }
+    }
+
+    public static void run(int shard, Runnable work){
+        try (Scope scope = enter(shard)) {
+            work.run();
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Integer previous;
+
+        private Scope(Integer previous){
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.caroline.user.api.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard in {@link ShardContext}, or of shard 0 when no shard was entered, which is
+ * also where Hibernate reads metadata and manages the schema at startup.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards){
+        if (shards.isEmpty())
+            throw new IllegalArgumentException("At least one shard is required");
+        this.shards = List.copyOf(shards);
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++)
+            targets.put(i, shards.get(i));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    public List<HikariDataSource> getShards(){
+        return shards;
+    }
+
+    /**
+     * Closes the pools of shards 1..N, which this class owns; shard 0 is a bean closed by the context.
+     */
+    @Override
+    public void close(){
+        shards.subList(1, shards.size()).forEach(HikariDataSource::close);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,46 @@
+package com.caroline.user.api.sharding;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A sequence generator that keeps its block of pre-allocated ids per shard. The plain generator holds one
+ * block for the whole session factory, so users created on any shard would get ids from the sequence of the
+ * shard that happened to refill it. Without sharding everything runs on shard 0 and this behaves exactly like
+ * the plain generator.
+ */
+public class ShardSequenceGenerator extends SequenceStyleGenerator {
+
+    private final Map<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+
+    private Class<?> idType;
+
+    private long initialValue;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        super.configure(type, params, serviceRegistry);
+        this.idType = type.getReturnedClass();
+        this.initialValue = determineInitialValue(params);
+        optimizers.put(0, getOptimizer());
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Integer shard = ShardContext.current();
+        Optimizer optimizer = optimizers.computeIfAbsent(shard == null ? 0 : shard, key -> OptimizerFactory.buildOptimizer(
+                getOptimizer().getClass().getName(), idType, getOptimizer().getIncrementSize(), initialValue));
+        return optimizer.generate(getDatabaseStructure().buildCallback(session));
+    }
+}
@@ -0,0 +1,294 @@
+package com.caroline.user.api.sharding;
+
+import com.caroline.user.api.exception.DataIntegrityViolationException;
+import com.caroline.user.api.model.DTO.BatchItemResult;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.projection.UserVersion;
+import com.caroline.user.api.service.UserService;
+import org.springframework.http.HttpStatus;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads users over the shards of {@link ShardRoutingDataSource}. Calls for one id run the shard-local
+ * service on the shard that owns the id; new users go to the {@link IdRangeShardRouter#nextShard() next}
+ * shard; emails are made unique through the {@link EmailDirectory}.
+ * <p>
+ * Pages are read from the shard holding the cursor first. Only when that shard runs out are the following
+ * shards asked in parallel; their ranges are ordered, so concatenating the results in shard order is the
+ * merged page.
+ */
+public class ShardedUserService implements UserService {
+
+    private final UserService shardLocal;
+
+    private final IdRangeShardRouter router;
+
+    private final EmailDirectory directory;
+
+    private final ExecutorService scatter;
+
+    public ShardedUserService(UserService shardLocal, IdRangeShardRouter router, EmailDirectory directory){
+        this.shardLocal = shardLocal;
+        this.router = router;
+        this.directory = directory;
+        this.scatter = Executors.newFixedThreadPool(router.getShards(), task -> {
+            Thread thread = new Thread(task, "user-shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void stop(){
+        scatter.shutdown();
+    }
+
+    @Override
+    public User findById(Integer id) {
+        return ShardContext.call(router.shardOf(id), () -> shardLocal.findById(id));
+    }
+
+    @Override
+    public UserDTO findViewById(Integer id) {
+        return ShardContext.call(router.shardOf(id), () -> shardLocal.findViewById(id));
+    }
+
+    @Override
+    public List<UserDTO> findPage(Integer afterId, int size) {
+        return page(afterId, size, shardLocal::findPage);
+    }
+
+    @Override
+    public Long findVersionById(Integer id) {
+        return ShardContext.call(router.shardOf(id), () -> shardLocal.findVersionById(id));
+    }
+
+    @Override
+    public List<UserVersion> findPageVersions(Integer afterId, int size) {
+        return page(afterId, size, shardLocal::findPageVersions);
+    }
+
+    @Override
+    public List<UserDTO> search(String query, int limit) {
+        return shardLocal.search(query, limit);
+    }
+
+    @Override
+    public void exportViews(Consumer<UserDTO> sink) {
+        for (int shard = 0; shard < router.getShards(); shard++)
+            ShardContext.run(shard, () -> shardLocal.exportViews(sink));
+    }
+
+    @Override
+    public User create(UserDTO userDTO) {
+        String email = userDTO.getEmail();
+        if (email != null && directory.reserve(List.of(email)).isEmpty())
+            throw new DataIntegrityViolationException("Email already registered");
+        User user;
+        try {
+            user = ShardContext.call(router.nextShard(), () -> shardLocal.create(userDTO));
+        } catch (RuntimeException ex) {
+            if (email != null)
+                directory.unreserve(List.of(email));
+            throw ex;
+        }
+        if (email != null)
+            directory.bind(Map.of(email, user.getId()));
+        return user;
+    }
+
+    @Override
+    public User update(UserDTO userDTO) {
+        Integer id = userDTO.getId();
+        String email = userDTO.getEmail();
+        if (id == null)
+            return shardLocal.update(userDTO);
+        EmailDirectory.Claim claim = email == null ? EmailDirectory.Claim.OWNED : directory.claim(Map.of(email, id)).get(email);
+        if (claim == EmailDirectory.Claim.TAKEN)
+            throw new DataIntegrityViolationException("Email already registered");
+        User user;
+        try {
+            user = ShardContext.call(router.shardOf(id), () -> shardLocal.update(userDTO));
+        } catch (RuntimeException ex) {
+            if (claim == EmailDirectory.Claim.NEW)
+                directory.release(Map.of(email, id));
+            throw ex;
+        }
+        directory.keepOnly(Collections.singletonMap(id, email));
+        return user;
+    }
+
+    @Override
+    public void delete(Integer id) {
+        ShardContext.run(router.shardOf(id), () -> shardLocal.delete(id));
+        directory.releaseUsers(List.of(id));
+    }
+
+    @Override
+    public List<BatchItemResult> createAll(List<UserDTO> users) {
+        Set<String> reserved = directory.reserve(users.stream().map(UserDTO::getEmail)
+                .filter(Objects::nonNull).collect(Collectors.toSet()));
+
+        BatchItemResult[] results = new BatchItemResult[users.size()];
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            String email = users.get(i).getEmail();
+            if (email != null && !reserved.remove(email))
+                results[i] = emailAlreadyRegistered(i, null);
+            else
+                byShard.computeIfAbsent(router.nextShard(), shard -> new ArrayList<>()).add(i);
+        }
+
+        perShard(users, byShard, shardLocal::createAll, results);
+
+        Map<String, Integer> created = new HashMap<>();
+        List<String> failed = new ArrayList<>();
+        byShard.values().forEach(indexes -> indexes.forEach(i -> {
+            String email = users.get(i).getEmail();
+            if (email == null)
+                return;
+            if (results[i].getStatus() == HttpStatus.CREATED.value())
+                created.put(email, results[i].getId());
+            else
+                failed.add(email);
+        }));
+        directory.bind(created);
+        directory.unreserve(failed);
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<BatchItemResult> updateAll(List<UserDTO> users) {
+        return updateAll(users, shardLocal::updateAll);
+    }
+
+    @Override
+    public List<BatchItemResult> updateAllEncoded(List<UserDTO> users) {
+        return updateAll(users, shardLocal::updateAllEncoded);
+    }
+
+    private List<BatchItemResult> updateAll(List<UserDTO> users, Function<List<UserDTO>, List<BatchItemResult>> update) {
+        // like the shard-local batch, the first item asking for an email is the one that may get it
+        Map<String, Integer> wanted = new HashMap<>();
+        users.stream().filter(user -> user.getId() != null && user.getEmail() != null)
+                .forEach(user -> wanted.putIfAbsent(user.getEmail(), user.getId()));
+        Map<String, EmailDirectory.Claim> claims = directory.claim(wanted);
+
+        BatchItemResult[] results = new BatchItemResult[users.size()];
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            UserDTO user = users.get(i);
+            String email = user.getEmail();
+            if (user.getId() != null && email != null
+                    && (!wanted.get(email).equals(user.getId()) || claims.get(email) == EmailDirectory.Claim.TAKEN))
+                results[i] = emailAlreadyRegistered(i, user.getId());
+            else
+                byShard.computeIfAbsent(router.shardOf(user.getId()), shard -> new ArrayList<>()).add(i);
+        }
+
+        perShard(users, byShard, update, results);
+
+        Map<Integer, String> updated = new HashMap<>();
+        Map<String, Integer> unused = new HashMap<>();
+        byShard.values().forEach(indexes -> indexes.forEach(i -> {
+            UserDTO user = users.get(i);
+            if (results[i].getStatus() == HttpStatus.OK.value())
+                updated.put(user.getId(), user.getEmail());
+            else if (user.getEmail() != null && claims.get(user.getEmail()) == EmailDirectory.Claim.NEW)
+                unused.put(user.getEmail(), user.getId());
+        }));
+        unused.entrySet().removeIf(claim -> claim.getKey().equals(updated.get(claim.getValue())));
+        directory.release(unused);
+        directory.keepOnly(updated);
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<BatchItemResult> deleteAll(List<Integer> ids) {
+        BatchItemResult[] results = new BatchItemResult[ids.size()];
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i = 0; i < ids.size(); i++)
+            byShard.computeIfAbsent(router.shardOf(ids.get(i)), shard -> new ArrayList<>()).add(i);
+
+        perShard(ids, byShard, shardLocal::deleteAll, results);
+
+        directory.releaseUsers(Arrays.stream(results)
+                .filter(result -> result.getStatus() == HttpStatus.NO_CONTENT.value())
+                .map(BatchItemResult::getId)
+                .collect(Collectors.toList()));
+        return Arrays.asList(results);
+    }
+
+    private <T> List<T> page(Integer afterId, int size, BiFunction<Integer, Integer, List<T>> query){
+        int first = router.shardOf(afterId);
+        List<T> page = ShardContext.call(first, () -> query.apply(afterId, size));
+        if (page.size() >= size || first == router.getShards() - 1)
+            return page;
+
+        int missing = size - page.size();
+        List<T> merged = new ArrayList<>(page);
+        for (List<T> rest : gather(first + 1, shard -> query.apply(afterId, missing))) {
+            merged.addAll(rest.subList(0, Math.min(rest.size(), size - merged.size())));
+            if (merged.size() == size)
+                break;
+        }
+        return merged;
+    }
+
+    /**
+     * Runs {@code work} on every shard from {@code first} on, in parallel, and returns the results in shard order.
+     */
+    private <T> List<T> gather(int first, IntFunction<T> work){
+        if (first == router.getShards() - 1)
+            return List.of(ShardContext.call(first, () -> work.apply(first)));
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (int shard = first; shard < router.getShards(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> ShardContext.call(target, () -> work.apply(target)), scatter));
+        }
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    /**
+     * Hands each shard its items as one batch, in parallel, and files the results under the caller's indexes.
+     */
+    private <T> void perShard(List<T> items, Map<Integer, List<Integer>> byShard,
+                              Function<List<T>, List<BatchItemResult>> batch, BatchItemResult[] results){
+        if (byShard.isEmpty())
+            return;
+        int first = byShard.keySet().iterator().next();
+        List<List<BatchItemResult>> byShardResults = gather(first, shard -> {
+            List<Integer> indexes = byShard.get(shard);
+            if (indexes == null)
+                return List.of();
+            return batch.apply(indexes.stream().map(items::get).collect(Collectors.toList()));
+        });
+        for (int shard = first; shard < router.getShards(); shard++) {
+            List<Integer> indexes = byShard.get(shard);
+            for (BatchItemResult result : byShardResults.get(shard - first)) {
+                int index = indexes.get(result.getIndex());
+                results[index] = new BatchItemResult(index, result.getId(), result.getStatus(), result.getError());
+            }
+        }
+    }
+
+    private BatchItemResult emailAlreadyRegistered(int index, Integer id){
+        return new BatchItemResult(index, id, HttpStatus.BAD_REQUEST.value(), "Email already registered");
+    }
+}
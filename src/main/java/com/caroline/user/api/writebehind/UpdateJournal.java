@@ -0,0 +1,177 @@
+package com.caroline.user.api.writebehind;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of accepted writes, one line per record, split into numbered segments. A segment is
+ * rolled when its records are handed to the database and deleted once they are committed; segments still
+ * on disk at startup hold writes that were acknowledged but never committed.
+ * <p>
+ * {@link #sync} is a group commit: concurrent writers waiting on the same fsync share it.
+ */
+public class UpdateJournal {
+
+    private static final String PREFIX = "updates-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+
+    private long segment;
+
+    private long appended;
+
+    private volatile long synced;
+
+    public UpdateJournal(Path directory){
+        this.directory = directory;
+    }
+
+    /**
+     * Segments left by a previous run, oldest first.
+     */
+    public List<Path> segments(){
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(PREFIX))
+                    .sorted(Comparator.comparingLong(UpdateJournal::segmentNumber))
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public static void read(Path segment, Consumer<String> records){
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // a torn last line means the write was never acknowledged
+                if (!line.isEmpty() && line.endsWith("}"))
+                    records.accept(line);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public synchronized void open(){
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing = segments();
+            segment = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1));
+            openNext();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes one record; it is durable only after {@link #sync} with the returned position.
+     */
+    public synchronized long append(String record){
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            return ++appended;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public void sync(long position){
+        if (synced >= position)
+            return;
+        synchronized (syncLock) {
+            if (synced >= position)
+                return;
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = appended;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * Closes the current segment, fsyncing it first, and starts a new one.
+     *
+     * @return the closed segment, to be deleted once its records are committed
+     */
+    public Path roll(){
+        synchronized (syncLock) {
+            synchronized (this) {
+                try {
+                    Path closed = path(segment);
+                    channel.force(false);
+                    channel.close();
+                    synced = appended;
+                    openNext();
+                    return closed;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+    }
+
+    public void delete(Path segment){
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public void close(){
+        synchronized (syncLock) {
+            synchronized (this) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                    synced = appended;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+    }
+
+    private void openNext() throws IOException {
+        segment++;
+        channel = FileChannel.open(path(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Path path(long number){
+        return directory.resolve(PREFIX + number + SUFFIX);
+    }
+
+    private static long segmentNumber(Path file){
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,341 @@
+package com.caroline.user.api.writebehind;
+
+import com.caroline.user.api.model.DTO.BatchItemResult;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.password.PasswordHasher;
+import com.caroline.user.api.service.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind for user updates: an update is hashed, journaled, fsynced and acknowledged, then merged with
+ * any other pending update for the same id and written later through {@link UserService#updateAllEncoded}
+ * in one batch, when {@code batchSize} ids are pending or every {@code flushInterval}.
+ * <p>
+ * Checks that need the database row (unique email) run at flush time; updates failing them, or failing to
+ * be written at all for reasons retrying cannot fix, are dropped and counted in
+ * {@code user.write-behind.rejected}.
+ * <p>
+ * Synchronous writes on this node call {@link #flush(Collection)} first, so they land after the queued
+ * updates of the same users. Writes on other nodes cannot, so each update carries the version the user had
+ * when it was accepted and is dropped at flush time if the user has moved on since.
+ */
+@Slf4j
+public class UserWriteBehind {
+
+    private final UserService service;
+
+    private final PasswordHasher hasher;
+
+    private final UpdateJournal journal;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    private final Duration flushInterval;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "user-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+
+    /**
+     * Write-held for a whole flush, including the database write, so that flushes run one at a time. Read-held
+     * while an update reads its version and is queued, so that no flush of the same user commits in between and
+     * makes the update look stale.
+     */
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private Map<Integer, UserDTO> pending = new LinkedHashMap<>();
+
+    private List<Path> pendingSegments = new ArrayList<>();
+
+    private final Counter accepted;
+
+    private final Counter coalesced;
+
+    private final Counter written;
+
+    private final Counter rejected;
+
+    private final Timer flushes;
+
+    public UserWriteBehind(UserService service, PasswordHasher hasher, UpdateJournal journal, ObjectMapper objectMapper,
+                           int batchSize, Duration flushInterval, MeterRegistry registry){
+        this.service = service;
+        this.hasher = hasher;
+        this.journal = journal;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.accepted = registry.counter("user.write-behind.accepted");
+        this.coalesced = registry.counter("user.write-behind.coalesced");
+        this.written = registry.counter("user.write-behind.written");
+        this.rejected = registry.counter("user.write-behind.rejected");
+        this.flushes = registry.timer("user.write-behind.flush");
+        Gauge.builder("user.write-behind.pending", this, UserWriteBehind::pendingCount).register(registry);
+    }
+
+    /**
+     * Loads writes acknowledged by a previous run but never committed, then starts flushing.
+     */
+    public void start(){
+        List<Path> recovered = journal.segments();
+        synchronized (lock) {
+            for (Path segment : recovered)
+                UpdateJournal.read(segment, record -> merge(fromRecord(record)));
+            pendingSegments.addAll(recovered);
+        }
+        if (!recovered.isEmpty())
+            log.info("Recovered {} pending user updates from {} journal segments", pendingCount(), recovered.size());
+        journal.open();
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop(){
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        journal.close();
+    }
+
+    /**
+     * Returns once the update is durable in the journal. The update is pinned to the user's current version.
+     *
+     * @throws com.caroline.user.api.exception.NotFoundException if there is no such user
+     */
+    public void submit(UserDTO userDTO){
+        String password = hasher.hash(userDTO.getPassword());
+
+        long position;
+        boolean full;
+        flushLock.readLock().lock();
+        try {
+            UserDTO update = UserDTO.builder().id(userDTO.getId()).name(userDTO.getName()).email(userDTO.getEmail())
+                    .password(password).version(service.findVersionById(userDTO.getId())).build();
+            String record = toRecord(update);
+            synchronized (lock) {
+                position = journal.append(record);
+                merge(update);
+                full = pending.size() >= batchSize;
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        journal.sync(position);
+        accepted.increment();
+        if (full)
+            flusher.execute(this::flushQuietly);
+    }
+
+    /**
+     * Writes everything pending in one batch and drops the journal segments it came from once committed.
+     */
+    public void flush(){
+        flushLock.writeLock().lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes pending updates first if any of these users has one, and waits for a flush already writing them.
+     */
+    public void flush(Collection<Integer> ids){
+        flushLock.writeLock().lock();
+        try {
+            boolean queued;
+            synchronized (lock) {
+                queued = ids.stream().anyMatch(pending::containsKey);
+            }
+            if (queued)
+                flushPending();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private void flushPending(){
+        Map<Integer, UserDTO> batch;
+        List<Path> segments;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                pendingSegments.forEach(journal::delete);
+                pendingSegments.clear();
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            segments = pendingSegments;
+            segments.add(journal.roll());
+            pendingSegments = new ArrayList<>();
+        }
+
+        List<BatchItemResult> results;
+        try {
+            results = write(new ArrayList<>(batch.values()));
+        } catch (RuntimeException ex) {
+            if (!isPermanent(ex)) {
+                requeue(batch, segments);
+                throw ex;
+            }
+            log.warn("Batch of {} queued user updates failed, writing them one at a time", batch.size(), ex);
+            results = writeEach(batch, segments);
+        }
+        count(results);
+        segments.forEach(journal::delete);
+    }
+
+    /**
+     * Writes each update on its own after its batch failed, so that one bad record cannot hold back the
+     * others: updates that fail permanently are dropped. A failure that may pass, e.g. a lost connection,
+     * puts the rest back for the next flush.
+     */
+    private List<BatchItemResult> writeEach(Map<Integer, UserDTO> batch, List<Path> segments){
+        List<BatchItemResult> results = new ArrayList<>(batch.size());
+        Map<Integer, UserDTO> remaining = new LinkedHashMap<>(batch);
+        for (UserDTO update : batch.values()) {
+            try {
+                results.addAll(write(List.of(update)));
+            } catch (RuntimeException ex) {
+                if (!isPermanent(ex)) {
+                    count(results);
+                    requeue(remaining, segments);
+                    throw ex;
+                }
+                results.add(new BatchItemResult(0, update.getId(), HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                        ex.getMessage()));
+            }
+            remaining.remove(update.getId());
+        }
+        return results;
+    }
+
+    private List<BatchItemResult> write(List<UserDTO> updates){
+        return flushes.record(() -> service.updateAllEncoded(updates));
+    }
+
+    private static boolean isPermanent(RuntimeException ex){
+        return ex instanceof NonTransientDataAccessException && !(ex instanceof DataAccessResourceFailureException);
+    }
+
+    private void requeue(Map<Integer, UserDTO> batch, List<Path> segments){
+        synchronized (lock) {
+            Map<Integer, UserDTO> newer = pending;
+            pending = batch;
+            newer.values().forEach(this::merge);
+            pendingSegments.addAll(0, segments);
+        }
+    }
+
+    private void count(List<BatchItemResult> results){
+        for (BatchItemResult result : results) {
+            if (result.getStatus() == HttpStatus.OK.value()) {
+                written.increment();
+            } else {
+                rejected.increment();
+                log.warn("Dropped queued update for user {}: {}", result.getId(), result.getError());
+            }
+        }
+    }
+
+    private void flushQuietly(){
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("User write-behind flush failed, retrying on the next tick", ex);
+        }
+    }
+
+    /**
+     * Leaves what applying both updates in turn would: name and email are replaced, even by null, while the
+     * password only changes when the newer update sets one. The newer update's version is kept, since it saw
+     * everything the older one did.
+     */
+    private void merge(UserDTO update){
+        UserDTO older = pending.get(update.getId());
+        if (older == null) {
+            pending.put(update.getId(), update);
+            return;
+        }
+        older.setName(update.getName());
+        older.setEmail(update.getEmail());
+        if (update.getPassword() != null)
+            older.setPassword(update.getPassword());
+        older.setVersion(update.getVersion());
+        coalesced.increment();
+    }
+
+    private int pendingCount(){
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private String toRecord(UserDTO update){
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", update.getId());
+        node.put("name", update.getName());
+        node.put("email", update.getEmail());
+        node.put("password", update.getPassword());
+        node.put("version", update.getVersion());
+        return node.toString();
+    }
+
+    private UserDTO fromRecord(String record){
+        try {
+            JsonNode node = objectMapper.readTree(record);
+            return UserDTO.builder().id(node.get("id").asInt()).name(text(node, "name")).email(text(node, "email"))
+                    .password(text(node, "password")).version(version(node)).build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Corrupt write-behind journal record", ex);
+        }
+    }
+
+    /**
+     * Null for records journaled before versions were, which are then written unconditionally.
+     */
+    private static Long version(JsonNode node){
+        JsonNode value = node.get("version");
+        return value == null || value.isNull() ? null : value.asLong();
+    }
+
+    private static String text(JsonNode node, String field){
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
@@ -0,0 +1,35 @@
+-- Schema for the postgres profile, which only validates it. Safe to run on every start.
+
+create sequence if not exists user_seq start with 1 increment by 50;
+
+create table if not exists users (
+    id integer not null primary key,
+    name varchar(255),
+    email varchar(255),
+    password varchar(255),
+    version bigint,
+    deleted_at timestamp,
+    constraint uk_user_email unique (email)
+);
+
+-- only tombstones are indexed, so the compactor finds them without walking the live rows
+create index if not exists ix_users_tombstone on users (id) where deleted_at is not null;
+
+-- Hibernate's pooled optimizer hands out the 50 ids up to the value it reads, so a sequence behind rows
+-- loaded from elsewhere is moved to the highest id; the next block then starts right above it
+select setval('user_seq', max(id)) from users having max(id) > (select last_value from user_seq);
+
+create sequence if not exists user_change_seq start with 1 increment by 50;
+
+create table if not exists user_change (
+    id bigint not null primary key,
+    change_seq bigint,
+    change_type varchar(255) not null,
+    user_id integer,
+    name varchar(255),
+    email varchar(255),
+    version bigint,
+    changed_at timestamp
+);
+
+create unique index if not exists uk_user_change_sequence on user_change (change_seq);
@@ -0,0 +1,75 @@
+package com.caroline.user.api.cache;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaffeineUserCacheTest {
+
+    public static final Integer ID = 1;
+    public static final String NAME = "Valdir";
+    public static final String EMAIL = "valdir@email.com";
+
+    private final CaffeineUserCache cache = new CaffeineUserCache(100, Duration.ofMinutes(1));
+
+    @Test
+    void whenPutShouldFindById() {
+
+        UserDTO user = new UserDTO(ID, NAME, EMAIL, 0L);
+        cache.put(user);
+
+        assertSame(user, cache.findById(ID).orElseThrow());
+    }
+
+    @Test
+    void whenEvictShouldRemoveId() {
+
+        cache.put(new UserDTO(ID, NAME, EMAIL, 0L));
+        cache.evict(ID);
+
+        assertTrue(cache.findById(ID).isEmpty());
+    }
+
+    @Test
+    void whenPutAgainShouldReplaceView() {
+
+        cache.put(new UserDTO(ID, NAME, EMAIL, 0L));
+        UserDTO updated = new UserDTO(ID, NAME, "valdir@other.com", 1L);
+        cache.put(updated);
+
+        assertSame(updated, cache.findById(ID).orElseThrow());
+    }
+
+    @Test
+    void whenPutOlderVersionShouldKeepNewerView() {
+
+        UserDTO updated = new UserDTO(ID, NAME, "valdir@other.com", 1L);
+        cache.put(updated);
+        cache.putLoaded(new UserDTO(ID, NAME, EMAIL, 0L), cache.readStamp());
+
+        assertSame(updated, cache.findById(ID).orElseThrow());
+    }
+
+    @Test
+    void whenEvictedWhileLoadingShouldNotCacheLoadedView() {
+
+        long readStamp = cache.readStamp();
+        cache.evict(ID);
+        cache.putLoaded(new UserDTO(ID, NAME, EMAIL, 0L), readStamp);
+
+        assertTrue(cache.findById(ID).isEmpty());
+    }
+
+    @Test
+    void whenEvictedBeforeLoadingShouldCacheLoadedView() {
+
+        cache.evict(ID);
+        UserDTO user = new UserDTO(ID, NAME, EMAIL, 0L);
+        cache.putLoaded(user, cache.readStamp());
+
+        assertSame(user, cache.findById(ID).orElseThrow());
+    }
+}
@@ -0,0 +1,127 @@
+package com.caroline.user.api.changes;
+
+import com.caroline.user.api.UserApiApplication;
+import com.caroline.user.api.invalidation.InvalidationMessage;
+import com.caroline.user.api.invalidation.InvalidationTransport;
+import com.caroline.user.api.model.DTO.UserChangeDTO;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.UserChange;
+import com.caroline.user.api.service.UserService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts sharing one database, each allocating outbox ids from its own block, so that a
+ * later change on one node can get a lower id than an earlier change on the other.
+ */
+class UserChangeRelayClusterTest {
+
+    public static final String DATABASE = "jdbc:h2:mem:changes-cluster;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=100";
+    public static final long HELD_CHANGE_ID = 1_000_000_000L;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = start("create-drop");
+        nodeB = start("none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void whenNodesChangeTheSameUserInOnePassShouldRelayInVersionOrder() throws Exception {
+
+        UserService a = nodeA.getBean(UserService.class);
+        UserService b = nodeB.getBean(UserService.class);
+        UserChangeRelay relay = nodeA.getBean(UserChangeRelay.class);
+
+        // both nodes take an id block before the user exists
+        a.delete(a.create(newUser("Warm A", "warm.a@email.com")).getId());
+        b.delete(b.create(newUser("Warm B", "warm.b@email.com")).getId());
+        Integer id = a.create(newUser("Ana", "ana.cluster@email.com")).getId();
+        relay.relayQuietly();
+        long since = relay.getPublished();
+
+        try (Connection connection = DriverManager.getConnection(DATABASE, "sa", "")) {
+            // a pending row held locked makes every relay pass fail until both writes committed
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("INSERT INTO USER_CHANGE (ID, CHANGE_TYPE, USER_ID) VALUES ("
+                        + HELD_CHANGE_ID + ", 'CHANGED', -1)");
+            }
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeQuery("SELECT * FROM USER_CHANGE WHERE ID = " + HELD_CHANGE_ID + " FOR UPDATE");
+            }
+
+            b.update(UserDTO.builder().id(id).name("Ana Maria").email("ana.cluster@email.com").build());
+            a.delete(id);
+            Thread.sleep(500);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM USER_CHANGE WHERE ID = " + HELD_CHANGE_ID);
+            }
+            connection.commit();
+        }
+        relay.relayQuietly();
+
+        List<UserChangeDTO> changes = relay.findAfter(since, 500).stream()
+                .filter(change -> id.equals(change.getUserId())).collect(Collectors.toList());
+        assertEquals(List.of(UserChange.Type.CHANGED, UserChange.Type.DELETED),
+                changes.stream().map(UserChangeDTO::getType).collect(Collectors.toList()));
+        assertTrue(changes.get(0).getVersion() < changes.get(1).getVersion());
+    }
+
+    private static ConfigurableApplicationContext start(String ddlAuto) {
+        SpringApplication application = new SpringApplication(UserApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        // the in-JVM bus would reach the cached test contexts, whose users have the same ids
+        application.addInitializers(context -> context.getBeanFactory()
+                .registerSingleton("silentInvalidationTransport", new SilentTransport()));
+        return application.run(
+                "--spring.main.banner-mode=off",
+                "--spring.profiles.active=cluster",
+                "--spring.datasource.url=" + DATABASE,
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--user.changes.poll-interval=1h",
+                "--user.invalidation.transport=none",
+                "--user.password.bcrypt.strength=4");
+    }
+
+    private static UserDTO newUser(String name, String email) {
+        return UserDTO.builder().name(name).email(email).password("123").build();
+    }
+
+    private static class SilentTransport implements InvalidationTransport {
+
+        @Override
+        public void publish(InvalidationMessage message) {
+        }
+
+        @Override
+        public void subscribe(Consumer<InvalidationMessage> listener) {
+        }
+
+        @Override
+        public void unsubscribe(Consumer<InvalidationMessage> listener) {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.caroline.user.api.changes;
+
+import com.caroline.user.api.exception.GoneException;
+import com.caroline.user.api.model.DTO.UserChangeDTO;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.UserChange;
+import com.caroline.user.api.repository.UserChangeRepository;
+import com.caroline.user.api.service.UserService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserChangeRelayTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private UserChangeRelay relay;
+
+    @Test
+    void whenUserIsCreatedUpdatedAndDeletedShouldStreamChangesInOrder() throws Exception {
+
+        long since = relay.getPublished();
+        Integer id = service.create(user(null, "Ana", "ana.changes@email.com")).getId();
+        service.update(user(id, "Ana Maria", "ana.changes@email.com"));
+        service.delete(id);
+
+        List<UserChangeDTO> changes = new ArrayList<>();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (changes.size() < 3 && System.nanoTime() < deadline) {
+            MvcResult result = poll(since, 5);
+            since = Long.parseLong(result.getResponse().getHeader("X-Next-Since"));
+            readChanges(result).stream().filter(change -> id.equals(change.getUserId())).forEach(changes::add);
+        }
+
+        assertEquals(List.of(UserChange.Type.CHANGED, UserChange.Type.CHANGED, UserChange.Type.DELETED),
+                changes.stream().map(UserChangeDTO::getType).collect(Collectors.toList()));
+        assertEquals("Ana", changes.get(0).getName());
+        assertEquals("Ana Maria", changes.get(1).getName());
+        assertTrue(changes.get(0).getSequence() < changes.get(1).getSequence());
+        assertTrue(changes.get(1).getSequence() < changes.get(2).getSequence());
+    }
+
+    @Test
+    void whenNoChangesShouldHoldThePollUntilAWriteCommits() throws Exception {
+
+        long since = relay.getPublished();
+        MvcResult pending = mockMvc.perform(MockMvcRequestBuilders.get("/user/changes")
+                        .param("since", String.valueOf(since)).param("wait", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertFalse(pending.getRequest().getAsyncContext().getResponse().isCommitted());
+
+        Integer id = service.create(user(null, "Bia", "bia.changes@email.com")).getId();
+        try {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(pending))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertTrue(readChanges(result).stream().anyMatch(change -> id.equals(change.getUserId())));
+        } finally {
+            service.delete(id);
+        }
+    }
+
+    @Test
+    void whenChangesWereDroppedShouldBeGone() {
+
+        UserChangeRepository repository = Mockito.mock(UserChangeRepository.class);
+        Mockito.when(repository.findViewsBySequenceGreaterThan(Mockito.eq(10L), Mockito.any()))
+                .thenReturn(List.of(new UserChangeDTO(15L, UserChange.Type.DELETED, 1, null, null, null, Instant.now())));
+        Mockito.when(repository.findViewsBySequenceGreaterThan(Mockito.eq(14L), Mockito.any()))
+                .thenReturn(List.of(new UserChangeDTO(15L, UserChange.Type.DELETED, 1, null, null, null, Instant.now())));
+        UserChangeRelay relay = new UserChangeRelay(repository, Mockito.mock(PlatformTransactionManager.class),
+                500, Duration.ofSeconds(1), Duration.ofDays(7), new SimpleMeterRegistry());
+
+        assertThrows(GoneException.class, () -> relay.findAfter(10, 500));
+        assertEquals(1, relay.findAfter(14, 500).size());
+    }
+
+    private MvcResult poll(long since, int wait) throws Exception {
+        MvcResult pending = mockMvc.perform(MockMvcRequestBuilders.get("/user/changes")
+                        .param("since", String.valueOf(since)).param("wait", String.valueOf(wait)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private List<UserChangeDTO> readChanges(MvcResult result) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsByteArray(), new TypeReference<>() {});
+    }
+
+    private UserDTO user(Integer id, String name, String email){
+        return UserDTO.builder().id(id).name(name).email(email).password("123").build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.caroline.user.api.compaction;
+
+import com.caroline.user.api.exception.NotFoundException;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class UserCompactorTest {
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private UserRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void whenDeletedShouldHideTheTombstoneAndFreeTheEmail() {
+
+        Integer id = service.create(user("tombstone@email.com")).getId();
+        service.delete(id);
+
+        assertThrows(NotFoundException.class, () -> service.findViewById(id));
+        assertThrows(NotFoundException.class, () -> service.findById(id));
+        assertThrows(NotFoundException.class, () -> service.delete(id));
+        assertEquals(1, rows(id));
+
+        Integer again = service.create(user("tombstone@email.com")).getId();
+        service.delete(again);
+    }
+
+    @Test
+    void whenCompactingShouldPurgeTombstonesInThrottledBatches() throws Exception {
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(service.create(user("compacted" + i + "@email.com")).getId());
+            service.delete(ids.get(i));
+        }
+        UserCompactor compactor = new UserCompactor(repository, transactionManager, 1, 10,
+                Duration.ofMinutes(1), Duration.ZERO, new SimpleMeterRegistry());
+
+        long started = System.nanoTime();
+        int purged = compactor.compact();
+
+        assertTrue(purged >= 3);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= 200);
+        ids.forEach(id -> assertEquals(0, rows(id)));
+    }
+
+    private int rows(Integer id){
+        return jdbc.queryForObject("select count(*) from users where id = ?", Integer.class, id);
+    }
+
+    private UserDTO user(String email){
+        return UserDTO.builder().name("Tomb").email(email).password("123").build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class DataSourceConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private UserService service;
+
+    @Test
+    void whenStartedShouldUseTunedPool() {
+
+        HikariDataSource hikari = (HikariDataSource) dataSource;
+
+        assertEquals("user-pool", hikari.getPoolName());
+        assertEquals(10, hikari.getMaximumPoolSize());
+        assertEquals(hikari.getMaximumPoolSize(), hikari.getMinimumIdle());
+        assertTrue(hikari.getJdbcUrl().contains("QUERY_CACHE_SIZE=64"));
+    }
+
+    @Test
+    void whenQueriedShouldExposePoolMetrics() {
+
+        service.findPage(null, 10);
+
+        assertNotNull(registry.find("hikaricp.connections.acquire").tag("pool", "user-pool").timer());
+        assertNotNull(registry.find("hikaricp.connections.pending").tag("pool", "user-pool").gauge());
+        assertNotNull(registry.find("hikaricp.connections.timeout").tag("pool", "user-pool").counter());
+        double saturation = registry.get(DataSourceConfig.SATURATION_GAUGE).tag("pool", "user-pool").gauge().value();
+        assertTrue(saturation >= 0 && saturation <= 1);
+    }
+}
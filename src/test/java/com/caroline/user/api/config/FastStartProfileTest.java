@@ -0,0 +1,47 @@
+package com.caroline.user.api.config;
+
+import com.caroline.user.api.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:fast-start")
+@ActiveProfiles({"local", "fast-start"})
+@AutoConfigureMockMvc
+class FastStartProfileTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void whenLazyShouldStillSeedIndexAndSubscribeAtStartup() throws Exception {
+
+        assertTrue(context.getBeanFactory().containsSingleton("userInvalidationBroadcaster"));
+
+        UserService service = context.getBean(UserService.class);
+        assertEquals("Valdir", service.search("valdir", 10).get(0).getName());
+        mockMvc.perform(get("/user/1")).andExpect(status().isOk());
+    }
+
+    @Test
+    void whenChildContextIsRefreshedShouldNotSeedAgain() {
+
+        try (AnnotationConfigApplicationContext child = new AnnotationConfigApplicationContext()) {
+            child.setParent(context);
+            assertDoesNotThrow(child::refresh);
+        }
+        assertEquals(1, context.getBean(UserService.class).search("valdir", 10).size());
+    }
+}
@@ -0,0 +1,25 @@
+package com.caroline.user.api.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadConfigTest {
+
+    @Test
+    void whenRuntimeSupportsVirtualThreadsShouldRunTasksOnThem() throws Exception {
+
+        if (Runtime.version().feature() < 21) {
+            assertThrows(IllegalStateException.class, VirtualThreadConfig::virtualThreadExecutor);
+            return;
+        }
+
+        ExecutorService executor = VirtualThreadConfig.virtualThreadExecutor();
+        Thread thread = executor.submit(Thread::currentThread).get();
+        executor.shutdown();
+
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+    }
+}
@@ -0,0 +1,77 @@
+package com.caroline.user.api.controller;
+
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Goes through Tomcat, since response compression and its interplay with ETags happen in the connector.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:compression")
+class UserCompressionTest {
+
+    public static final int USERS = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository repository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        if (repository.count() >= USERS)
+            return;
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++)
+            users.add(new User(null, "User " + i, "compression" + i + "@email.com", "123"));
+        repository.saveAll(users);
+    }
+
+    @Test
+    void whenLargePageIsRequestedWithGzipShouldCompressIt() throws Exception {
+
+        for (String format : List.of("application/json", "application/cbor", "application/x-jackson-smile")) {
+            HttpResponse<byte[]> response = get("/user?size=" + UserController.MAX_PAGE_SIZE, format, null);
+
+            assertEquals(200, response.statusCode());
+            assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null), format);
+            assertTrue(response.headers().firstValue(HttpHeaders.ETAG).orElseThrow().startsWith("W/"));
+        }
+    }
+
+    @Test
+    void whenGzippedPageIsRevalidatedShouldReturnNotModified() throws Exception {
+
+        String uri = "/user?size=" + UserController.MAX_PAGE_SIZE;
+        String etag = get(uri, "application/json", null).headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+
+        assertEquals(304, get(uri, "application/json", etag).statusCode());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT, accept)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        if (ifNoneMatch != null)
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
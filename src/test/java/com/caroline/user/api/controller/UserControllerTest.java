@@ -4,25 +4,30 @@ import com.caroline.user.api.exception.DataIntegrityViolationException;
 import com.caroline.user.api.exception.NotFoundException;
 import com.caroline.user.api.model.DTO.UserDTO;
 import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.mapper.UserMapper;
 import com.caroline.user.api.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -42,6 +47,8 @@ public class UserControllerTest {
 
     public static final String USER_API = "/user";
 
+    public static final String SMILE = "application/x-jackson-smile";
+
     @InjectMocks
     private UserController controller;
 
@@ -49,7 +56,7 @@ public class UserControllerTest {
     MockMvc mockMvc;
 
     @Mock
-    private ModelMapper mapper;
+    private UserMapper mapper;
 
     @Mock
     private UserService service;
@@ -64,10 +71,9 @@ public class UserControllerTest {
     @Test
     void whenFindByIdShouldReturnAnUserDTO(){
 
-        Mockito.when(service.findById(Mockito.anyInt())).thenReturn(createNewUser());
-        Mockito.when(mapper.map(Mockito.any(), Mockito.any())).thenReturn(createNewUserDTO());
+        Mockito.when(service.findViewById(Mockito.anyInt())).thenReturn(createNewUserDTO());
 
-        ResponseEntity<UserDTO> response = controller.findById(ID);
+        ResponseEntity<UserDTO> response = controller.findById(ID, null);
 
         assertNotNull(response);
         assertNotNull(response.getBody());
@@ -81,7 +87,7 @@ public class UserControllerTest {
     @Test
     void whenFindByIdShouldReturnHttpStatusNotFound() throws Exception {
 
-        Mockito.when(service.findById(Mockito.anyInt()))
+        Mockito.when(service.findViewById(Mockito.anyInt()))
                 .thenThrow(new NotFoundException(MESSAGE_USER_NOT_FOUND));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -91,13 +97,65 @@ public class UserControllerTest {
         mockMvc.perform(request).andExpect(status().isNotFound());
     }
 
+    @Test
+    void whenFindByIdWithMatchingETagShouldReturnNotModified(){
+
+        Mockito.when(service.findVersionById(ID)).thenReturn(0L);
+
+        ResponseEntity<UserDTO> response = controller.findById(ID, "\"0\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("W/\"0\"", response.getHeaders().getETag());
+        Mockito.verify(service, Mockito.never()).findViewById(Mockito.anyInt());
+    }
+
+    @Test
+    void whenFindByIdRevalidatesETagShouldReturnHttpStatusNotModified() throws Exception {
+
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get(USER_API + "/" + ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(USER_API + "/" + ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void whenUpdateWithStaleIfMatchShouldReturnHttpStatusPreconditionFailed() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(USER_API + "/" + ID)
+                .header(HttpHeaders.IF_MATCH, "\"999\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(createNewUserDTO()));
+
+        mockMvc.perform(request).andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void whenUpdateNameIsTooLongShouldReturnHttpStatusBadRequest() throws Exception {
+
+        UserDTO userDTO = createNewUserDTO();
+        userDTO.setName("a".repeat(User.MAX_TEXT_LENGTH + 1));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(USER_API + "/" + ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(userDTO));
+
+        mockMvc.perform(request).andExpect(status().isBadRequest());
+    }
+
     @Test
     void whenFindByAllShouldReturnAListOfUserDTO() {
 
-        Mockito.when(service.findAll()).thenReturn(List.of(createNewUser()));
-        Mockito.when(mapper.map(Mockito.any(), Mockito.any())).thenReturn(createNewUserDTO());
+        Mockito.when(service.findPage(Mockito.any(), Mockito.anyInt()))
+                .thenReturn(new ArrayList<>(List.of(createNewUserDTO())));
 
-        ResponseEntity<List<UserDTO>> response = controller.findAll();
+        ResponseEntity<List<UserDTO>> response = controller.findAll(null, UserController.DEFAULT_PAGE_SIZE, null);
 
         //aqui o instrutor colocou notnull, mas lista não retorna nula e sim vazia certo?
         // O teste não está fazendo nenhuma validação de fato??
@@ -112,10 +170,11 @@ public class UserControllerTest {
     @Test
     void whenFindByAllShouldReturnAListEmpty(){
 
-        Mockito.when(service.findAll()).thenReturn(List.of());
-        Mockito.when(mapper.map(Mockito.any(), Mockito.any())).thenReturn(List.of());
+        Mockito.when(service.findPage(Mockito.any(), Mockito.anyInt())).thenReturn(new ArrayList<>());
 
-        ResponseEntity<List<UserDTO>> response = controller.findAll();
+        ResponseEntity<List<UserDTO>> response = controller.findAll(null, UserController.DEFAULT_PAGE_SIZE, null);
+
+        Mockito.verifyNoInteractions(mapper);
 
         assert(response.getBody().isEmpty());
         assertNotNull(response.getBody());
@@ -124,6 +183,44 @@ public class UserControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    void whenFindAllPageIsFullShouldReturnNextCursor() {
+
+        Mockito.when(service.findPage(null, 1)).thenReturn(List.of(createNewUserDTO()));
+
+        ResponseEntity<List<UserDTO>> response = controller.findAll(null, 1, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ID, PageCursor.decode(response.getHeaders().getFirst(UserController.NEXT_CURSOR)));
+    }
+
+    @Test
+    void whenFindAllWithInvalidCursorShouldReturnHttpStatusBadRequest() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API)
+                .param("cursor", "invalid")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("error").value("Invalid cursor"));
+    }
+
+    @Test
+    void whenStreamAllShouldReturnNdjson() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API)
+                .accept(MediaType.APPLICATION_NDJSON);
+
+        MvcResult result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+    }
+
     @Test
     void whenCreateShouldReturnHttpStatusCreated(){
 
@@ -167,9 +264,9 @@ public class UserControllerTest {
         user.setPassword("987");
 
         Mockito.when(service.update(userDTO)).thenReturn(user);
-        Mockito.when(mapper.map(Mockito.any(), Mockito.any())).thenReturn(userDTO);
+        Mockito.when(mapper.toDTO(Mockito.any())).thenReturn(userDTO);
 
-        ResponseEntity<UserDTO> response = controller.update(ID, userDTO);
+        ResponseEntity<UserDTO> response = controller.update(ID, null, userDTO);
 
         assertNotNull(response);
         assertNotNull(response.getBody());
@@ -232,6 +329,129 @@ public class UserControllerTest {
         mockMvc.perform(request).andExpect(status().isNotFound());
     }
 
+    @Test
+    void whenCreateAllShouldReturnResultPerItem() throws Exception {
+
+        List<UserDTO> users = List.of(
+                UserDTO.builder().name("Batch").email("batch@email.com").password(PASSWORD).build(),
+                UserDTO.builder().name("Batch").email("batch@email.com").password(PASSWORD).build());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(USER_API + UserController.BATCH)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(users));
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].error").value(MESSAGE_EXISTING_EMAIL));
+    }
+
+    @Test
+    void whenBatchIsEmptyShouldReturnHttpStatusBadRequest() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .delete(USER_API + UserController.BATCH)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]");
+
+        mockMvc.perform(request).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenSearchShouldReturnMatchingUsers() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API + UserController.SEARCH)
+                .param("q", "VALD")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value(EMAIL))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
+
+    @Test
+    void whenSearchQueryIsBlankShouldReturnHttpStatusBadRequest() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get(USER_API + UserController.SEARCH).param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenExportAsCsvShouldStreamHeaderAndRows() throws Exception {
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(USER_API + UserController.EXPORT).param("format", "csv"))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.startsWith("id,name,email,version\n"));
+        assertTrue(body.contains(",Valdir," + EMAIL + ","));
+    }
+
+    @Test
+    void whenImportNdjsonShouldCreateUsersAndReportLineErrors() throws Exception {
+
+        String ndjson = "{\"name\":\"Import\",\"email\":\"import@email.com\"}\n"
+                + "{broken\n"
+                + "{\"name\":\"Valdir\",\"email\":\"" + EMAIL + "\"}\n";
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(USER_API + UserController.IMPORT)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson);
+        MvcResult result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+
+        String[] events = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(3, events.length);
+        assertTrue(events[0].contains("\"index\":2"));
+        assertTrue(events[1].contains("\"index\":3") && events[1].contains(MESSAGE_EXISTING_EMAIL));
+        assertTrue(events[2].contains("\"created\":1") && events[2].contains("\"done\":true"));
+
+        String found = mockMvc.perform(MockMvcRequestBuilders.get(USER_API + UserController.SEARCH).param("q", "import@"))
+                .andExpect(jsonPath("$[0].name").value("Import"))
+                .andReturn().getResponse().getContentAsString();
+
+        UserDTO imported = new ObjectMapper().readValue(found, UserDTO[].class)[0];
+        mockMvc.perform(MockMvcRequestBuilders.delete(USER_API + "/" + imported.getId()))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void whenAcceptIsCborShouldReturnBinaryPage() throws Exception {
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get(USER_API).param("size", "10").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        UserDTO[] users = new CBORMapper().readValue(body, UserDTO[].class);
+        assertEquals(NAME, users[0].getName());
+    }
+
+    @Test
+    void whenAcceptIsSmileShouldReturnBinaryUser() throws Exception {
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get(USER_API + "/" + ID).accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(EMAIL, new SmileMapper().readValue(body, UserDTO.class).getEmail());
+    }
+
     private User createNewUser() {
         return User.builder()
                 .id(ID)
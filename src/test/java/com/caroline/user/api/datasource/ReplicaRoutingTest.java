@@ -0,0 +1,122 @@
+package com.caroline.user.api.datasource;
+
+import com.caroline.user.api.exception.NotFoundException;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.http.Cookie;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A second embedded H2 plays the replica. It starts as an empty copy of the primary's table and only
+ * catches up when {@link #replicate()} is called, which stands in for replication lag.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY,
+        "user.datasource.replicas.urls=" + ReplicaRoutingTest.REPLICA,
+        "user.cache.enabled=false",
+        "user.ratelimit.enabled=false"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    public static final String PRIMARY = "jdbc:h2:mem:routing-primary";
+    public static final String REPLICA =
+            "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'";
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA, "sa", ""));
+
+    @BeforeEach
+    void setUp() {
+        replicate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replica.update("DELETE FROM USERS WHERE EMAIL LIKE 'routing%'");
+        service.findPage(null, 100).stream()
+                .filter(user -> user.getEmail().startsWith("routing"))
+                .forEach(user -> service.delete(user.getId()));
+    }
+
+    @Test
+    void whenReplicaLagsShouldReadOwnWritesOnlyWithinScope() {
+
+        ReadYourWrites.open(false, () -> { });
+        Integer id;
+        try {
+            id = service.create(newUser("routing1@email.com")).getId();
+            assertEquals("routing1@email.com", service.findViewById(id).getEmail());
+        } finally {
+            ReadYourWrites.close();
+        }
+
+        assertThrows(NotFoundException.class, () -> service.findViewById(id));
+
+        replicate();
+        assertEquals("routing1@email.com", service.findViewById(id).getEmail());
+    }
+
+    @Test
+    void whenClientWroteRecentlyShouldStickToPrimary() throws Exception {
+
+        MvcResult created = mockMvc.perform(post("/user").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Routing\",\"email\":\"routing2@email.com\",\"password\":\"123\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                .andReturn();
+        String location = created.getResponse().getHeader("Location");
+        Cookie sticky = created.getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        mockMvc.perform(get(location)).andExpect(status().isNotFound());
+        mockMvc.perform(get(location).cookie(sticky)).andExpect(status().isOk());
+
+        replicate();
+        mockMvc.perform(get(location)).andExpect(status().isOk());
+    }
+
+    @Test
+    void whenClosedShouldCloseReplicaPoolsButNotPrimary() {
+
+        HikariDataSource primary = new HikariDataSource();
+        HikariDataSource replicaPool = new HikariDataSource();
+
+        new ReplicaRoutingDataSource(primary, List.of(replicaPool), ReplicaSelector.roundRobin(1)).close();
+
+        assertTrue(replicaPool.isClosed());
+        assertFalse(primary.isClosed());
+        primary.close();
+    }
+
+    private void replicate() {
+        replica.update("DELETE FROM USERS");
+        replica.update("INSERT INTO USERS SELECT * FROM PRIMARY_USER");
+    }
+
+    private UserDTO newUser(String email) {
+        return UserDTO.builder().name("Routing").email(email).password("123").build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.caroline.user.api.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaSelectorTest {
+
+    @Test
+    void whenRoundRobinShouldCycleThroughReplicas() {
+
+        ReplicaSelector selector = ReplicaSelector.roundRobin(3);
+
+        assertEquals(0, selector.select());
+        assertEquals(1, selector.select());
+        assertEquals(2, selector.select());
+        assertEquals(0, selector.select());
+    }
+
+    @Test
+    void whenLeastLoadedShouldPickIdlestReplica() {
+
+        int[] loads = {4, 1, 3};
+        List<IntSupplier> suppliers = List.of(() -> loads[0], () -> loads[1], () -> loads[2]);
+        ReplicaSelector selector = ReplicaSelector.leastLoaded(suppliers);
+
+        assertEquals(1, selector.select());
+        assertEquals(1, selector.select());
+
+        loads[1] = 5;
+        assertEquals(2, selector.select());
+    }
+
+    @Test
+    void whenLeastLoadedTiesShouldSpreadReads() {
+
+        ReplicaSelector selector = ReplicaSelector.leastLoaded(List.of(() -> 0, () -> 0));
+
+        assertEquals(0, selector.select());
+        assertEquals(1, selector.select());
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -64,4 +66,88 @@ class ResourceExceptionHandlerTest {
         assertNotEquals("2022-07-15T12:58:04.333238", response.getBody().getTimestamp());
         assertNotEquals("/user/1", response.getBody().getPath());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenBadRequest() {
+
+        ResponseEntity<StandardError> response = exceptionHandler
+                .badRequest(new BadRequestException("Invalid cursor"), new MockHttpServletRequest());
+
+        assertNotNull(response);
+        assertNotNull(response.getBody());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(StandardError.class, response.getBody().getClass());
+        assertEquals("Invalid cursor", response.getBody().getError());
+        assertEquals(400, response.getBody().getStatus());
+    }
+
+    @Test
+    void whenPreconditionFailed() {
+
+        ResponseEntity<StandardError> response = exceptionHandler
+                .preconditionFailed(new PreconditionFailedException("User was modified by another request"),
+                        new MockHttpServletRequest());
+
+        assertNotNull(response.getBody());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals("User was modified by another request", response.getBody().getError());
+        assertEquals(412, response.getBody().getStatus());
+    }
+
+    @Test
+    void whenOptimisticLockingFailure() {
+
+        ResponseEntity<StandardError> response = exceptionHandler
+                .optimisticLockingFailure(new ObjectOptimisticLockingFailureException("User", 1),
+                        new MockHttpServletRequest());
+
+        assertNotNull(response.getBody());
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("User was modified by another request", response.getBody().getError());
+        assertEquals(409, response.getBody().getStatus());
+    }
+
+    @Test
+    void whenServiceUnavailable() {
+
+        ResponseEntity<StandardError> response = exceptionHandler
+                .serviceUnavailable(new ServiceUnavailableException("Password hashing capacity exceeded, retry later"),
+                        new MockHttpServletRequest());
+
+        assertNotNull(response.getBody());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(503, response.getBody().getStatus());
+    }
+
+    @Test
+    void whenTooManyRequests() {
+
+        ResponseEntity<StandardError> response = exceptionHandler
+                .tooManyRequests(new TooManyRequestsException("Rate limit exceeded", 3), new MockHttpServletRequest());
+
+        assertNotNull(response.getBody());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst("Retry-After"));
+        assertEquals(429, response.getBody().getStatus());
+    }
+
+    @Test
+    void whenConnectionUnavailable() {
+
+        ResponseEntity<StandardError> response = exceptionHandler
+                .connectionUnavailable(new CannotCreateTransactionException("Connection is not available"),
+                        new MockHttpServletRequest());
+
+        assertNotNull(response.getBody());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Database unavailable", response.getBody().getError());
+    }
+
+    @Test
+    void whenDomainExceptionThenNoStackTrace() {
+
+        assertEquals(0, new NotFoundException(MESSAGE_USER_NOT_FOUND).getStackTrace().length);
+        assertEquals(0, new TooManyRequestsException("Rate limit exceeded", 3).getStackTrace().length);
+    }
+}
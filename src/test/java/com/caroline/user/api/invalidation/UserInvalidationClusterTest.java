@@ -0,0 +1,116 @@
+package com.caroline.user.api.invalidation;
+
+import com.caroline.user.api.UserApiApplication;
+import com.caroline.user.api.exception.NotFoundException;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts sharing one database and the in-JVM transport, standing in for two replicas.
+ */
+class UserInvalidationClusterTest {
+
+    public static final String DATABASE = "jdbc:h2:mem:invalidation;DB_CLOSE_DELAY=-1";
+    public static final int UPDATES = 200;
+    public static final long MAX_STALENESS_MS = 1_000;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = start("create-drop");
+        nodeB = start("none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void whenOtherNodeUpdatesShouldEvictCachedUser() {
+
+        UserService a = nodeA.getBean(UserService.class);
+        UserService b = nodeB.getBean(UserService.class);
+
+        User user = a.create(newUser("Valdir", "cluster@email.com"));
+        assertEquals("Valdir", b.findViewById(user.getId()).getName());
+
+        long start = System.nanoTime();
+        a.update(UserDTO.builder().id(user.getId()).name("Luiz").email("cluster@email.com").build());
+        awaitTrue(() -> "Luiz".equals(b.findViewById(user.getId()).getName()));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < MAX_STALENESS_MS);
+
+        assertEquals("Luiz", b.search("luiz", 10).get(0).getName());
+
+        a.delete(user.getId());
+        awaitTrue(() -> b.search("cluster", 10).isEmpty());
+        assertThrows(NotFoundException.class, () -> b.findViewById(user.getId()));
+    }
+
+    @Test
+    void whenManyUpdatesShouldAllReachOtherNode() {
+
+        UserService a = nodeA.getBean(UserService.class);
+        UserService b = nodeB.getBean(UserService.class);
+        MeterRegistry registryB = nodeB.getBean(MeterRegistry.class);
+        Timer lag = registryB.timer("user.invalidation.lag");
+
+        User user = a.create(newUser("Burst", "burst@email.com"));
+        b.findViewById(user.getId());
+        awaitTrue(() -> lag.count() > 0);
+        long before = lag.count();
+
+        for (int i = 0; i < UPDATES; i++)
+            a.update(UserDTO.builder().id(user.getId()).name("Burst " + i).email("burst@email.com").build());
+        awaitTrue(() -> lag.count() - before >= UPDATES);
+
+        assertTrue(lag.max(TimeUnit.MILLISECONDS) < MAX_STALENESS_MS);
+        assertEquals("Burst " + (UPDATES - 1), b.findViewById(user.getId()).getName());
+        a.delete(user.getId());
+    }
+
+    private static ConfigurableApplicationContext start(String ddlAuto) {
+        SpringApplication application = new SpringApplication(UserApiApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        return application.run(
+                "--spring.main.banner-mode=off",
+                "--spring.profiles.active=cluster",
+                "--spring.datasource.url=" + DATABASE,
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--user.password.bcrypt.strength=4");
+    }
+
+    private static UserDTO newUser(String name, String email) {
+        return UserDTO.builder().name(name).email(email).password("123").build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5s");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.caroline.user.api.metrics;
+
+import com.caroline.user.api.exception.NotFoundException;
+import com.caroline.user.api.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsAspectTest {
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void whenServiceAndRepositoryAreCalledShouldRecordTimers() {
+
+        service.findPage(null, 10);
+
+        assertNotNull(registry.find(MetricsAspect.SERVICE_TIMER).tag("method", "findPage").timer());
+        assertNotNull(registry.find(MetricsAspect.REPOSITORY_TIMER).tag("method", "findViewsByIdGreaterThan").timer());
+    }
+
+    @Test
+    void whenServiceThrowsShouldTagException() {
+
+        Assertions.catchThrowable(() -> service.findViewById(-1));
+
+        assertNotNull(registry.find(MetricsAspect.SERVICE_TIMER)
+                .tags("method", "findViewById", "exception", NotFoundException.class.getSimpleName()).timer());
+    }
+
+    @Test
+    void whenRequestIsHandledShouldRecordQueryCountAndErrors() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/-1").accept(MediaType.APPLICATION_JSON));
+
+        assertTrue(registry.get(QueryCountInterceptor.QUERY_SUMMARY).tag("uri", "/user/{id}").summary().count() > 0);
+        assertTrue(registry.get(MetricsAspect.ERROR_COUNTER)
+                .tag("exception", NotFoundException.class.getSimpleName()).counter().count() > 0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.caroline.user.api.model.mapper;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCsvTest {
+
+    @Test
+    void whenWriteShouldQuoteOnlyWhenNeeded() throws Exception {
+
+        StringWriter out = new StringWriter();
+        UserCsv.write(out, new UserDTO(1, "Souza, \"Valdir\"", "valdir@email.com", 2L));
+
+        assertEquals("1,\"Souza, \"\"Valdir\"\"\",valdir@email.com,2\n", out.toString());
+    }
+
+    @Test
+    void whenParseShouldRoundTripWrittenRecord() throws Exception {
+
+        StringWriter out = new StringWriter();
+        UserCsv.write(out, new UserDTO(1, "Souza, \"Valdir\"", "valdir@email.com", 2L));
+
+        String[] record = UserCsv.parse(out.toString().trim());
+
+        assertArrayEquals(new String[]{"1", "Souza, \"Valdir\"", "valdir@email.com", "2"}, record);
+    }
+
+    @Test
+    void whenQuotedFieldHasLineBreakShouldRoundTrip() throws Exception {
+
+        StringWriter out = new StringWriter();
+        UserCsv.write(out, new UserDTO(1, "Valdir\n\"Souza\"", "valdir@email.com", 2L));
+        String[] lines = out.toString().split("\n");
+
+        assertTrue(UserCsv.togglesQuote(lines[0]));
+        assertTrue(UserCsv.togglesQuote(lines[1]));
+        String record = lines[0] + '\n' + lines[1];
+        assertArrayEquals(new String[]{"1", "Valdir\n\"Souza\"", "valdir@email.com", "2"}, UserCsv.parse(record));
+    }
+
+    @Test
+    void whenReadShouldMapColumnsByHeader() {
+
+        UserDTO user = UserCsv.read(new String[]{"email", "ignored", "Name", "password"},
+                new String[]{"luiz@email.com", "x", "Luiz", ""});
+
+        assertEquals("Luiz", user.getName());
+        assertEquals("luiz@email.com", user.getEmail());
+        assertNull(user.getPassword());
+        assertNull(user.getId());
+    }
+
+    @Test
+    void whenQuoteIsUnterminatedShouldThrow() {
+
+        assertThrows(IllegalArgumentException.class, () -> UserCsv.parse("1,\"Valdir"));
+    }
+}
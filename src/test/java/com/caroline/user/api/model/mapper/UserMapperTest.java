@@ -0,0 +1,46 @@
+package com.caroline.user.api.model.mapper;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserMapperTest {
+
+    public static final Integer ID = 1;
+    public static final String NAME = "Valdir";
+    public static final String EMAIL = "valdir@email.com";
+    public static final String PASSWORD = "123";
+
+    private final UserMapper mapper = new UserMapper();
+
+    @Test
+    void whenToDTOShouldCopyAllAttributes() {
+
+        UserDTO response = mapper.toDTO(new User(ID, NAME, EMAIL, PASSWORD));
+
+        assertEquals(ID, response.getId());
+        assertEquals(NAME, response.getName());
+        assertEquals(EMAIL, response.getEmail());
+        assertEquals(PASSWORD, response.getPassword());
+    }
+
+    @Test
+    void whenToEntityShouldCopyAllAttributes() {
+
+        User response = mapper.toEntity(new UserDTO(ID, NAME, EMAIL, PASSWORD, 0L));
+
+        assertEquals(new User(ID, NAME, EMAIL, PASSWORD), response);
+    }
+
+    @Test
+    void whenSerializingMappedDTOShouldNotWritePassword() throws Exception {
+
+        String json = new ObjectMapper().writeValueAsString(mapper.toDTO(new User(ID, NAME, EMAIL, PASSWORD)));
+
+        assertFalse(json.contains("password"));
+        assertFalse(json.contains(PASSWORD));
+    }
+}
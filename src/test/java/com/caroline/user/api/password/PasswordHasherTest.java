@@ -0,0 +1,94 @@
+package com.caroline.user.api.password;
+
+import com.caroline.user.api.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    public static final String PASSWORD = "123";
+
+    private final PasswordEncoder encoder =
+            new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(4)));
+
+    private PasswordHasher hasher = new PasswordHasher(encoder, 2, 4);
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void whenHashShouldRunOnHasherThreadAndMatch() {
+
+        String hash = hasher.hash(PASSWORD);
+
+        assertTrue(hash.startsWith("{bcrypt}"));
+        assertTrue(encoder.matches(PASSWORD, hash));
+        assertNull(hasher.hash(null));
+    }
+
+    @Test
+    void whenHashAllShouldKeepOrder() {
+
+        List<String> hashes = hasher.hashAll(Arrays.asList("a", null, "c", "d", "e"));
+
+        assertEquals(5, hashes.size());
+        assertTrue(encoder.matches("a", hashes.get(0)));
+        assertNull(hashes.get(1));
+        assertTrue(encoder.matches("e", hashes.get(4)));
+    }
+
+    @Test
+    void whenStoredPasswordIsPlainTextShouldUpgrade() {
+
+        String hash = hasher.hash(PASSWORD);
+
+        assertTrue(encoder.matches(PASSWORD, hasher.upgrade(PASSWORD)));
+        assertSame(hash, hasher.upgrade(hash));
+    }
+
+    @Test
+    void whenQueueIsFullShouldThrowServiceUnavailableException() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        hasher.shutdown();
+        hasher = new PasswordHasher(blocking, 1, 1);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.hash(PASSWORD));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.hash(PASSWORD));
+        Thread.sleep(200);
+
+        assertThrows(ServiceUnavailableException.class, () -> hasher.hash(PASSWORD));
+
+        release.countDown();
+        assertNotNull(running.get(10, TimeUnit.SECONDS));
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+    }
+}
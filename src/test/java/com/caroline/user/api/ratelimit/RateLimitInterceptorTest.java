@@ -0,0 +1,105 @@
+package com.caroline.user.api.ratelimit;
+
+import com.caroline.user.api.exception.ServiceUnavailableException;
+import com.caroline.user.api.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"user.ratelimit.enabled=true", "user.ratelimit.rate=0.1", "user.ratelimit.burst=2"})
+@AutoConfigureMockMvc
+class RateLimitInterceptorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void whenClientExceedsBurstShouldReturnHttpStatusTooManyRequests() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/1")).andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/1")).andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("status").value(429))
+                .andExpect(jsonPath("path").value("/user/1"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/user")).andExpect(status().isOk());
+    }
+
+    @Test
+    void whenConcurrencyLimitIsReachedShouldThrowServiceUnavailableException() {
+
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(new TokenBucketRateLimiter(1000, 1000, 100),
+                new AdaptiveConcurrencyLimiter(1, 1, 1, 1_000_000_000L, 0.9), new SimpleMeterRegistry());
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/user/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(first, response, null));
+        assertThrows(ServiceUnavailableException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest("GET", "/user/1"), response, null));
+
+        interceptor.afterCompletion(first, response, null, null);
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/user/1"), response, null));
+    }
+
+    @Test
+    void whenStreamingShouldNotTakeAConcurrencyPermit() {
+
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(new TokenBucketRateLimiter(1000, 1000, 100),
+                new AdaptiveConcurrencyLimiter(1, 1, 1, 1_000_000_000L, 0.9), new SimpleMeterRegistry());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(streamRequest(), response, null));
+        assertTrue(interceptor.preHandle(streamRequest(), response, null));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/user"), response, null));
+    }
+
+    @Test
+    void whenClientHeaderIsConfiguredShouldLimitEachClientSeparately() {
+
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(new TokenBucketRateLimiter(0.1, 1, 100),
+                new AdaptiveConcurrencyLimiter(10, 1, 10, 1_000_000_000L, 0.9), new SimpleMeterRegistry());
+        interceptor.setClientHeader("X-Client-Id");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(clientRequest("a"), response, null));
+        assertThrows(TooManyRequestsException.class, () -> interceptor.preHandle(clientRequest("a"), response, null));
+        assertTrue(interceptor.preHandle(clientRequest("b"), response, null));
+    }
+
+    @Test
+    void whenExportingShouldBypassLimits() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/export")).andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/export")).andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/export")).andExpect(status().isOk());
+    }
+
+    private static MockHttpServletRequest streamRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user");
+        request.setAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, Set.of(MediaType.APPLICATION_NDJSON));
+        return request;
+    }
+
+    private static MockHttpServletRequest clientRequest(String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/1");
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+}
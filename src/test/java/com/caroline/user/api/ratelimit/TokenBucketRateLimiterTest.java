@@ -0,0 +1,31 @@
+package com.caroline.user.api.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 3, 100);
+
+    @Test
+    void whenBurstIsSpentShouldRejectWithWaitTime() {
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+
+        long wait = limiter.tryAcquire("a");
+        assertTrue(wait > 0 && wait <= 1_000_000_000L);
+    }
+
+    @Test
+    void whenKeysDifferShouldHaveSeparateBuckets() {
+
+        for (int i = 0; i < 3; i++)
+            limiter.tryAcquire("a");
+
+        assertTrue(limiter.tryAcquire("a") > 0);
+        assertEquals(0, limiter.tryAcquire("b"));
+    }
+}
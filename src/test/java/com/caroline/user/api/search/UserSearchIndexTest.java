@@ -0,0 +1,111 @@
+package com.caroline.user.api.search;
+
+import com.caroline.user.api.model.DTO.UserDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchIndexTest {
+
+    private final UserSearchIndex index = new UserSearchIndex();
+
+    @Test
+    void whenPrefixMatchesShouldRankBeforeSubstringMatches() {
+
+        index.put(new UserDTO(1, "Valdir", "valdir@email.com", 0L));
+        index.put(new UserDTO(2, "Luiz", "luiz.valdo@email.com", 0L));
+        index.put(new UserDTO(3, "Ana", "ana@email.com", 0L));
+
+        assertEquals(List.of(1, 2), ids(index.search("Vald", 10)));
+        assertEquals(List.of(1), ids(index.search("vald", 1)));
+        assertEquals(List.of(3), ids(index.search("ANA@", 10)));
+    }
+
+    @Test
+    void whenShortQueryShouldOnlyMatchPrefixes() {
+
+        index.put(new UserDTO(1, "Valdir Souza", "valdir@email.com", 0L));
+
+        assertEquals(List.of(1), ids(index.search("so", 10)));
+        assertTrue(index.search("ld", 10).isEmpty());
+    }
+
+    @Test
+    void whenUserChangesShouldDropOldTerms() {
+
+        index.put(new UserDTO(1, "Valdir", "valdir@email.com", 0L));
+        index.put(new UserDTO(1, "Luiz", "luiz@email.com", 1L));
+
+        assertTrue(index.search("valdir", 10).isEmpty());
+        assertEquals(List.of(1), ids(index.search("uiz", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void whenOlderVersionArrivesShouldKeepNewerView() {
+
+        index.put(new UserDTO(1, "Luiz", "luiz@email.com", 2L));
+        index.put(new UserDTO(1, "Valdir", "valdir@email.com", 1L));
+
+        assertEquals("Luiz", index.search("luiz", 10).get(0).getName());
+    }
+
+    @Test
+    void whenRemoveShouldNotBeFound() {
+
+        index.put(new UserDTO(1, "Valdir", "valdir@email.com", 0L));
+        index.remove(1);
+
+        assertTrue(index.search("valdir", 10).isEmpty());
+        assertTrue(index.search("email", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void whenLoadedViewWasRemovedMeanwhileShouldNotIndexIt() {
+
+        UserDTO read = new UserDTO(1, "Valdir", "valdir@email.com", 0L);
+        index.put(new UserDTO(1, "Valdir", "valdir@email.com", 1L));
+        index.remove(1);
+        index.load(read);
+        index.loaded();
+
+        assertTrue(index.search("valdir", 10).isEmpty());
+        index.put(new UserDTO(1, "Luiz", "luiz@email.com", 0L));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void whenUserIsRemovedDuringSearchShouldSkipIt() throws Exception {
+
+        for (int id = 1; id <= 100; id++)
+            index.put(new UserDTO(id, "Valdir " + id, "valdir" + id + "@email.com", 0L));
+
+        AtomicBoolean searching = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int round = 0; searching.get(); round++) {
+                int id = round % 100 + 1;
+                index.remove(id);
+                index.put(new UserDTO(id, "Valdir " + id, "valdir" + id + "@email.com", (long) round));
+            }
+        });
+        writer.start();
+        try {
+            long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            while (System.nanoTime() < until)
+                assertDoesNotThrow(() -> index.search("aldir", 100));
+        } finally {
+            searching.set(false);
+            writer.join();
+        }
+    }
+
+    private List<Integer> ids(List<UserDTO> users) {
+        return users.stream().map(UserDTO::getId).collect(Collectors.toList());
+    }
+}
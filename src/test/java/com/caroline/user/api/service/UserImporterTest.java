@@ -0,0 +1,154 @@
+package com.caroline.user.api.service;
+
+import com.caroline.user.api.model.DTO.BatchItemResult;
+import com.caroline.user.api.model.DTO.ImportProgress;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.mapper.UserCsv;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImporterTest {
+
+    @InjectMocks
+    private UserImporter importer;
+
+    @Mock
+    private UserService service;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<BatchItemResult> errors = new ArrayList<>();
+
+    private final List<ImportProgress> progress = new ArrayList<>();
+
+    private final UserImporter.Listener listener = new UserImporter.Listener() {
+        @Override
+        public void onError(BatchItemResult error) {
+            errors.add(error);
+        }
+
+        @Override
+        public void onProgress(ImportProgress update) {
+            progress.add(update);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void whenNdjsonHasBadLinesShouldReportThemByLineNumber() throws Exception {
+
+        Mockito.when(service.createAll(Mockito.any())).thenReturn(List.of(
+                new BatchItemResult(0, 1, 201, null),
+                new BatchItemResult(1, null, 400, "Email already registered")));
+
+        String body = "{\"name\":\"Valdir\",\"email\":\"valdir@email.com\"}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"name\":\"Luiz\",\"email\":\"valdir@email.com\"}\n";
+
+        ImportProgress summary = importer.importNdjson(new BufferedReader(new StringReader(body)), listener);
+
+        assertEquals(4, summary.getLines());
+        assertEquals(1, summary.getCreated());
+        assertEquals(2, summary.getFailed());
+        assertTrue(summary.isDone());
+        assertEquals(2, errors.get(0).getIndex());
+        assertEquals("Malformed JSON", errors.get(0).getError());
+        assertEquals(4, errors.get(1).getIndex());
+        assertEquals("Email already registered", errors.get(1).getError());
+    }
+
+    @Test
+    void whenInputExceedsChunkShouldWriteInChunksAndReportProgress() throws Exception {
+
+        Mockito.when(service.createAll(Mockito.any())).thenAnswer(invocation -> {
+            List<UserDTO> users = invocation.getArgument(0);
+            List<BatchItemResult> results = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++)
+                results.add(new BatchItemResult(i, i, 201, null));
+            return results;
+        });
+
+        StringBuilder body = new StringBuilder("name,email\n");
+        int rows = UserImporter.CHUNK_SIZE * 2 + 1;
+        for (int i = 0; i < rows; i++)
+            body.append("User ").append(i).append(",user").append(i).append("@email.com\n");
+
+        ImportProgress summary = importer.importCsv(new BufferedReader(new StringReader(body.toString())), listener);
+
+        Mockito.verify(service, Mockito.times(3)).createAll(Mockito.any());
+        assertEquals(rows, summary.getCreated());
+        assertEquals(3, progress.size());
+        assertEquals(UserImporter.CHUNK_SIZE + 1, progress.get(0).getLines());
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    void whenCsvExportHasLineBreaksInNamesShouldImportIt() throws Exception {
+
+        List<UserDTO> imported = new ArrayList<>();
+        Mockito.when(service.createAll(Mockito.any())).thenAnswer(invocation -> {
+            List<UserDTO> users = invocation.getArgument(0);
+            imported.addAll(users);
+            List<BatchItemResult> results = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++)
+                results.add(new BatchItemResult(i, i, 201, null));
+            return results;
+        });
+
+        StringWriter export = new StringWriter();
+        export.write(UserCsv.HEADER + "\n");
+        UserCsv.write(export, new UserDTO(1, "Valdir\nSouza", "valdir@email.com", 0L));
+        UserCsv.write(export, new UserDTO(2, "Luiz, \"Lu\"\n\nSilva", "luiz@email.com", 0L));
+        export.write("3,\"Ana\n");
+
+        ImportProgress summary = importer.importCsv(new BufferedReader(new StringReader(export.toString())), listener);
+
+        assertEquals(2, summary.getCreated());
+        assertEquals("Valdir\nSouza", imported.get(0).getName());
+        assertEquals("Luiz, \"Lu\"\n\nSilva", imported.get(1).getName());
+        assertEquals("luiz@email.com", imported.get(1).getEmail());
+        assertEquals(1, errors.size());
+        assertEquals(7, errors.get(0).getIndex());
+        assertEquals("Malformed CSV record", errors.get(0).getError());
+    }
+
+    @Test
+    void whenCsvQuoteIsNeverClosedShouldRejectOnlyTheCutOffRecord() throws Exception {
+
+        Mockito.when(service.createAll(Mockito.any())).thenAnswer(invocation -> {
+            List<UserDTO> users = invocation.getArgument(0);
+            List<BatchItemResult> results = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++)
+                results.add(new BatchItemResult(i, i, 201, null));
+            return results;
+        });
+
+        StringBuilder body = new StringBuilder(UserCsv.HEADER + "\n");
+        body.append("1,\"Ana,ana@email.com,0\n");
+        for (int i = 0; i < 300; i++)
+            body.append(",User ").append(i).append(",user").append(i).append("@email.com,\n");
+
+        ImportProgress summary = importer.importCsv(new BufferedReader(new StringReader(body.toString())), listener);
+
+        assertEquals(1, errors.size());
+        assertEquals(2, errors.get(0).getIndex());
+        assertEquals(300 - (UserImporter.MAX_RECORD_LINES - 1), summary.getCreated());
+        assertEquals(302, summary.getLines());
+    }
+}
@@ -0,0 +1,74 @@
+package com.caroline.user.api.service;
+
+import com.caroline.user.api.exception.DataIntegrityViolationException;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class UserServiceConcurrencyTest {
+
+    public static final int WRITERS = 16;
+
+    @Autowired
+    private UserService service;
+
+    @Test
+    void whenConcurrentCreatesShareEmailShouldHaveExactlyOneWinner() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<User>> results = new ArrayList<>();
+
+        for (int i = 0; i < WRITERS; i++) {
+            UserDTO userDTO = UserDTO.builder().name("Racer " + i).email("race@email.com").password("123").build();
+            results.add(executor.submit(() -> {
+                start.await();
+                return service.create(userDTO);
+            }));
+        }
+        start.countDown();
+
+        List<User> winners = new ArrayList<>();
+        int rejected = 0;
+        for (Future<User> result : results) {
+            try {
+                winners.add(result.get(30, TimeUnit.SECONDS));
+            } catch (ExecutionException ex) {
+                assertEquals(DataIntegrityViolationException.class, ex.getCause().getClass());
+                assertEquals("Email already registered", ex.getCause().getMessage());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, winners.size());
+        assertEquals(WRITERS - 1, rejected);
+
+        service.delete(winners.get(0).getId());
+    }
+
+    @Test
+    void whenUpdateTakesAnotherUsersEmailShouldBeRejected() {
+
+        User first = service.create(UserDTO.builder().name("First").email("first@email.com").password("123").build());
+        User second = service.create(UserDTO.builder().name("Second").email("second@email.com").password("123").build());
+
+        Throwable ex = assertThrows(DataIntegrityViolationException.class, () -> service.update(UserDTO.builder()
+                .id(second.getId()).name("Second").email("first@email.com").password("123").build()));
+
+        assertEquals("Email already registered", ex.getMessage());
+        assertEquals("second@email.com", service.findViewById(second.getId()).getEmail());
+
+        service.delete(first.getId());
+        service.delete(second.getId());
+    }
+}
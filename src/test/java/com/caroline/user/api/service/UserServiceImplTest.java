@@ -1,20 +1,31 @@
 package com.caroline.user.api.service;
 
 
+import com.caroline.user.api.cache.UserCache;
 import com.caroline.user.api.exception.DataIntegrityViolationException;
+import com.caroline.user.api.invalidation.UserChangedEvent;
 import com.caroline.user.api.exception.NotFoundException;
+import com.caroline.user.api.exception.PreconditionFailedException;
+import com.caroline.user.api.model.DTO.BatchItemResult;
 import com.caroline.user.api.model.DTO.UserDTO;
 import com.caroline.user.api.model.entity.User;
+import com.caroline.user.api.model.mapper.UserMapper;
+import com.caroline.user.api.password.PasswordHasher;
 import com.caroline.user.api.repository.UserRepository;
+import com.caroline.user.api.search.UserSearchIndex;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,7 +46,22 @@ public class UserServiceImplTest {
     private UserRepository repository;
 
     @Mock
-    private ModelMapper mapper;
+    private UserMapper mapper;
+
+    @Mock
+    private UserCache cache;
+
+    @Mock
+    private PasswordHasher hasher;
+
+    @Mock
+    private UserSearchIndex searchIndex;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @BeforeEach
     void setUp(){
@@ -54,6 +80,31 @@ public class UserServiceImplTest {
         assertEquals(createNewUser(), response);
     }
 
+    @Test
+    void whenFindViewByIdShouldReturnProjectionAndCacheIt(){
+
+        UserDTO view = new UserDTO(ID, NAME, EMAIL, 0L);
+        Mockito.when(cache.readStamp()).thenReturn(7L);
+        Mockito.when(repository.findViewById(ID)).thenReturn(Optional.of(view));
+
+        UserDTO response = service.findViewById(ID);
+
+        assertEquals(view, response);
+        assertNull(response.getPassword());
+        Mockito.verify(cache).putLoaded(view, 7L);
+    }
+
+    @Test
+    void whenFindViewByIdIsCachedShouldNotQueryRepository(){
+
+        Mockito.when(cache.findById(ID)).thenReturn(Optional.of(new UserDTO(ID, NAME, EMAIL, 0L)));
+
+        UserDTO response = service.findViewById(ID);
+
+        assertEquals(ID, response.getId());
+        Mockito.verifyNoInteractions(repository);
+    }
+
     @Test
     void whenFindByIdShouldThrowNotFoundException(){
 
@@ -69,24 +120,34 @@ public class UserServiceImplTest {
     @Test
     void whenFindAllShouldReturnListOfUsers(){
 
-        Mockito.when(repository.findAll()).thenReturn(List.of(createNewUser()));
+        Mockito.when(repository.findViewsByIdGreaterThan(Mockito.anyInt(), Mockito.any()))
+                .thenReturn(List.of(new UserDTO(ID, NAME, EMAIL, 0L)));
 
-        List<User> response = service.findAll();
+        List<UserDTO> response = service.findPage(null, 50);
 
         //aqui o instrutor colocou notnull, mas lista não retorna nula e sim vazia certo?
         // O teste não está fazendo nenhuma validação de fato??
         assertEquals(1, response.size());
-        assertEquals(User.class, response.get(0).getClass());
-        assertEquals(createNewUser(), response.get(0));
+        assertEquals(UserDTO.class, response.get(0).getClass());
+        assertEquals(ID, response.get(0).getId());
         //aqui eu comparei só o obj inteiro, o instrutor cada atributo,
         //se o equalsandhashcode ta comparando todos obj, assim não tem problema?
     }
 
+    @Test
+    void whenFindPageShouldQueryAfterCursorWithPageSize(){
+
+        Mockito.when(repository.findViewsByIdGreaterThan(Mockito.anyInt(), Mockito.any())).thenReturn(List.of());
+
+        service.findPage(ID, 10);
+
+        Mockito.verify(repository).findViewsByIdGreaterThan(ID, PageRequest.of(0, 10));
+    }
+
     @Test
     void whenCreateShouldReturnAnUser(){
 
-        Mockito.when(repository.existsByEmailAndIdNot(Mockito.anyString(), Mockito.anyInt())).thenReturn(false);
-        Mockito.when(repository.save(Mockito.any())).thenReturn(createNewUser());
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenReturn(createNewUser());
 
         User response = service.create(createNewUserDTO());
 
@@ -97,10 +158,53 @@ public class UserServiceImplTest {
     }
 
     
+    @Test
+    void whenCreateShouldStoreHashedPassword(){
+
+        UserDTO userDTO = createNewUserDTO();
+        Mockito.when(hasher.hash(PASSWORD)).thenReturn("{bcrypt}hash");
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenReturn(createNewUser());
+
+        service.create(userDTO);
+
+        assertEquals("{bcrypt}hash", userDTO.getPassword());
+        Mockito.verify(mapper).toEntity(userDTO);
+    }
+
+    @Test
+    void whenCreateShouldPublishUserChangedEvent(){
+
+        UserDTO view = new UserDTO(ID, NAME, EMAIL, 0L);
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenReturn(createNewUser());
+        Mockito.when(mapper.toView(Mockito.any())).thenReturn(view);
+
+        service.create(createNewUserDTO());
+
+        ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+        Mockito.verify(events).publishEvent(event.capture());
+        assertSame(view, event.getValue().getChanged().get(0));
+        assertTrue(event.getValue().getDeleted().isEmpty());
+    }
+
+    @Test
+    void whenUpdateWithoutPasswordShouldUpgradeStoredPassword(){
+
+        UserDTO userDTO = createNewUserDTO();
+        userDTO.setPassword(null);
+        User current = createNewUser();
+        Mockito.when(repository.findById(ID)).thenReturn(Optional.of(current));
+        Mockito.when(hasher.upgrade(PASSWORD)).thenReturn("{bcrypt}hash");
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        User response = service.update(userDTO);
+
+        assertEquals("{bcrypt}hash", response.getPassword());
+    }
+
     @Test
     void whenCreateShouldThrowDataIntegrityViolationException(){
 
-        Mockito.when(repository.existsByEmailAndIdNot(Mockito.anyString(), Mockito.anyInt())).thenReturn(true);
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenThrow(emailConstraintViolation());
 
         Throwable ex = Assertions.catchThrowable(() -> service.create(createNewUserDTO()));
 
@@ -109,6 +213,17 @@ public class UserServiceImplTest {
 
     }
 
+    @Test
+    void whenCreateViolatesAnotherConstraintShouldRethrow(){
+
+        Mockito.when(repository.saveAndFlush(Mockito.any()))
+                .thenThrow(new org.springframework.dao.DataIntegrityViolationException("NULL not allowed"));
+
+        Throwable ex = Assertions.catchThrowable(() -> service.create(createNewUserDTO()));
+
+        assertEquals(org.springframework.dao.DataIntegrityViolationException.class, ex.getClass());
+    }
+
     @Test
     void whenUpdateShouldReturnAnUser(){
         //está atualizando de fato?
@@ -120,8 +235,8 @@ public class UserServiceImplTest {
         UserDTO userDTOUpdated = createNewUserDTO();
         userDTOUpdated.setPassword("987");
 
-        Mockito.when(repository.existsByEmailAndIdNot(Mockito.anyString(), Mockito.anyInt())).thenReturn(false);
-        Mockito.when(repository.save(Mockito.any())).thenReturn(userUpdated);
+        Mockito.when(repository.findById(ID)).thenReturn(Optional.of(createNewUser()));
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenReturn(userUpdated);
 
         User response = service.update(userDTOUpdated);
 
@@ -137,12 +252,49 @@ public class UserServiceImplTest {
     }
 
 
+    @Test
+    void whenUpdateWithStaleVersionShouldThrowPreconditionFailedException(){
+
+        User current = createNewUser();
+        current.setVersion(2L);
+        Mockito.when(repository.findById(ID)).thenReturn(Optional.of(current));
+
+        UserDTO userDTO = createNewUserDTO();
+        userDTO.setVersion(1L);
+
+        Throwable ex = Assertions.catchThrowable(() -> service.update(userDTO));
+
+        assertEquals(PreconditionFailedException.class, ex.getClass());
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    void whenUpdateMissingUserShouldThrowNotFoundException(){
+
+        Mockito.when(repository.findById(ID)).thenReturn(Optional.empty());
+
+        Throwable ex = Assertions.catchThrowable(() -> service.update(createNewUserDTO()));
+
+        assertEquals(NotFoundException.class, ex.getClass());
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    void whenFindVersionByIdShouldUseCachedView(){
+
+        Mockito.when(cache.findById(ID)).thenReturn(Optional.of(new UserDTO(ID, NAME, EMAIL, 3L)));
+
+        assertEquals(3L, service.findVersionById(ID));
+        Mockito.verify(repository, Mockito.never()).findVersionById(Mockito.anyInt());
+    }
+
     @Test
     void whenUpdateShouldThrowDataIntegrityViolationException(){
 
-        Mockito.when(repository.existsByEmailAndIdNot(Mockito.anyString(), Mockito.anyInt())).thenReturn(true);
+        Mockito.when(repository.findById(ID)).thenReturn(Optional.of(createNewUser()));
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenThrow(emailConstraintViolation());
 
-        Throwable ex = Assertions.catchThrowable(() -> service.create(createNewUserDTO()));
+        Throwable ex = Assertions.catchThrowable(() -> service.update(createNewUserDTO()));
 
         assertEquals(DataIntegrityViolationException.class, ex.getClass());
         assertEquals(MESSAGE_EXISTING_EMAIL, ex.getMessage());
@@ -151,12 +303,28 @@ public class UserServiceImplTest {
     @Test
     void whenDeleteWithSuccess(){
 
-        Mockito.when(repository.findById(Mockito.anyInt())).thenReturn(Optional.of(createNewUser()));
-        Mockito.doNothing().when(repository).deleteById(Mockito.anyInt());
+        Mockito.when(repository.tombstone(Mockito.any(), Mockito.any())).thenReturn(1);
+        Mockito.when(repository.findTombstoneVersions(List.of(ID))).thenReturn(List.of(new UserDTO(ID, null, null, 3L)));
 
         service.delete(ID);
 
-        Mockito.verify(repository, Mockito.times(1)).deleteById(Mockito.anyInt());
+        Mockito.verify(repository, Mockito.times(1)).tombstone(Mockito.eq(List.of(ID)), Mockito.any());
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyInt());
+        ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+        Mockito.verify(events).publishEvent(event.capture());
+        assertEquals(List.of(ID), event.getValue().getDeleted());
+        assertEquals(3L, event.getValue().getDeletedVersions().get(ID));
+    }
+
+    @Test
+    void whenDeleteUnknownIdShouldThrowNotFoundException(){
+
+        Mockito.when(repository.tombstone(Mockito.any(), Mockito.any())).thenReturn(0);
+
+        Throwable ex = Assertions.catchThrowable(() -> service.delete(ID));
+
+        assertEquals(NotFoundException.class, ex.getClass());
+        Mockito.verifyNoInteractions(events);
     }
 
     @Test
@@ -170,6 +338,110 @@ public class UserServiceImplTest {
         assertEquals(MESSAGE_USER_NOT_FOUND, ex.getMessage());
     }
 
+    @Test
+    void whenCreateAllShouldReportTakenAndDuplicatedEmails(){
+
+        UserDTO taken = createNewUserDTO();
+        UserDTO fresh = UserDTO.builder().name("Luiz").email("luiz@email.com").password(PASSWORD).build();
+        UserDTO duplicated = UserDTO.builder().name("Luiz").email("luiz@email.com").password(PASSWORD).build();
+        User saved = User.builder().id(2).name("Luiz").email("luiz@email.com").password(PASSWORD).build();
+
+        UserRepository.EmailOwner owner = Mockito.mock(UserRepository.EmailOwner.class);
+        Mockito.when(owner.getEmail()).thenReturn(EMAIL);
+        Mockito.when(repository.findByEmailIn(Mockito.any())).thenReturn(List.of(owner));
+        Mockito.when(repository.saveAll(Mockito.any())).thenReturn(List.of(saved));
+        Mockito.when(hasher.hashAll(Mockito.any())).thenReturn(List.of("h0", "h1", "h2"));
+
+        List<BatchItemResult> response = service.createAll(List.of(taken, fresh, duplicated));
+
+        assertEquals(3, response.size());
+        assertEquals(400, response.get(0).getStatus());
+        assertEquals(MESSAGE_EXISTING_EMAIL, response.get(0).getError());
+        assertEquals(201, response.get(1).getStatus());
+        assertEquals(2, response.get(1).getId());
+        assertEquals(400, response.get(2).getStatus());
+        Mockito.verify(repository, Mockito.times(1)).findByEmailIn(Mockito.any());
+    }
+
+    @Test
+    void whenCreateAllLosesAnEmailToAConcurrentWriterShouldRejectOnlyThatItem(){
+
+        UserDTO raced = createNewUserDTO();
+        UserDTO fresh = UserDTO.builder().name("Luiz").email("luiz@email.com").password(PASSWORD).build();
+        User saved = User.builder().id(2).name("Luiz").email("luiz@email.com").password(PASSWORD).build();
+
+        Mockito.when(hasher.hashAll(Mockito.any())).thenReturn(List.of("h0", "h1"));
+        Mockito.when(repository.saveAll(Mockito.any())).then(call -> {
+            List<User> users = call.getArgument(0);
+            return users.size() == 1 && !users.get(0).getEmail().equals(EMAIL) ? List.of(saved) : users;
+        });
+        Mockito.doThrow(emailConstraintViolation()).doThrow(emailConstraintViolation()).doNothing()
+                .when(repository).flush();
+        Mockito.when(mapper.toEntity(Mockito.any())).then(call -> {
+            UserDTO user = call.getArgument(0);
+            return User.builder().name(user.getName()).email(user.getEmail()).build();
+        });
+
+        List<BatchItemResult> response = service.createAll(List.of(raced, fresh));
+
+        assertEquals(400, response.get(0).getStatus());
+        assertEquals(MESSAGE_EXISTING_EMAIL, response.get(0).getError());
+        assertEquals(201, response.get(1).getStatus());
+        assertEquals(1, response.get(1).getIndex());
+        assertEquals(2, response.get(1).getId());
+    }
+
+    @Test
+    void whenUpdateAllWithUnknownIdShouldReportNotFound(){
+
+        Mockito.when(repository.findAllById(Mockito.any())).thenReturn(List.of());
+        Mockito.when(hasher.hashAll(Mockito.any())).thenReturn(List.of("h0"));
+
+        List<BatchItemResult> response = service.updateAll(List.of(createNewUserDTO()));
+
+        assertEquals(404, response.get(0).getStatus());
+        assertEquals(MESSAGE_USER_NOT_FOUND, response.get(0).getError());
+    }
+
+    @Test
+    void whenUpdateAllItemHasStaleVersionShouldReportPreconditionFailed(){
+
+        User user = createNewUser();
+        user.setVersion(2L);
+        UserDTO stale = createNewUserDTO();
+        stale.setVersion(1L);
+        Mockito.when(repository.findAllById(Mockito.any())).thenReturn(List.of(user));
+        Mockito.when(hasher.hashAll(Mockito.any())).thenReturn(List.of("h0"));
+
+        List<BatchItemResult> response = service.updateAll(List.of(stale));
+
+        assertEquals(412, response.get(0).getStatus());
+        assertEquals(NAME, user.getName());
+        assertEquals(PASSWORD, user.getPassword());
+    }
+
+    @Test
+    void whenDeleteAllShouldDeleteFoundIdsInOneBatch(){
+
+        Mockito.when(repository.findIdsByIdIn(Mockito.any())).thenReturn(List.of(ID));
+        Mockito.when(repository.findTombstoneVersions(Set.of(ID))).thenReturn(List.of(new UserDTO(ID, null, null, 3L)));
+
+        List<BatchItemResult> response = service.deleteAll(List.of(ID, 2));
+
+        assertEquals(204, response.get(0).getStatus());
+        assertEquals(404, response.get(1).getStatus());
+        Mockito.verify(repository).tombstone(Mockito.eq(Set.of(ID)), Mockito.any());
+        ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+        Mockito.verify(events).publishEvent(event.capture());
+        assertEquals(List.of(ID), event.getValue().getDeleted());
+    }
+
+    private org.springframework.dao.DataIntegrityViolationException emailConstraintViolation(){
+        return new org.springframework.dao.DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Unique index or primary key violation", null,
+                        "PUBLIC.UK_USER_EMAIL_INDEX_2 ON PUBLIC.USERS(EMAIL)"));
+    }
+
     private User createNewUser(){
         return User.builder()
                 .id(ID)
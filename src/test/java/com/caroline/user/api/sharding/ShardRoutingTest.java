@@ -0,0 +1,200 @@
+package com.caroline.user.api.sharding;
+
+import com.caroline.user.api.exception.DataIntegrityViolationException;
+import com.caroline.user.api.model.DTO.BatchItemResult;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three embedded H2 databases play the shards. Shard 0 gets its schema from Hibernate, the others from
+ * {@code shard-schema.sql}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-0",
+        "user.sharding.urls=" + ShardRoutingTest.SHARD_1 + "," + ShardRoutingTest.SHARD_2,
+        "user.cache.enabled=false",
+        "user.ratelimit.enabled=false"})
+class ShardRoutingTest {
+
+    public static final String SHARD_1 =
+            "jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:shard-schema.sql'";
+    public static final String SHARD_2 =
+            "jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:shard-schema.sql'";
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private IdRangeShardRouter router;
+
+    @Autowired
+    private JdbcTemplate firstShard;
+
+    // the application pool does not auto-commit
+    private final JdbcTemplate directory = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:shard-0", "sa", ""));
+
+    private final List<JdbcTemplate> shards = List.of(
+            new JdbcTemplate(new DriverManagerDataSource(SHARD_1, "sa", "")),
+            new JdbcTemplate(new DriverManagerDataSource(SHARD_2, "sa", "")));
+
+    @AfterEach
+    void tearDown() {
+        List<Integer> ids = new ArrayList<>();
+        service.exportViews(user -> {
+            if (user.getEmail() != null && user.getEmail().startsWith("shard"))
+                ids.add(user.getId());
+        });
+        service.deleteAll(ids);
+    }
+
+    @Test
+    void whenCreatingShouldPlaceEachUserInTheShardOwningItsId() {
+
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < router.getShards(); i++) {
+            Integer id = service.create(newUser("shard" + i + "@email.com")).getId();
+            int shard = router.shardOf(id);
+            used.add(shard);
+            assertTrue(id >= router.rangeStart(shard));
+            assertEquals(1, rows(shard, id));
+            assertEquals("shard" + i + "@email.com", service.findViewById(id).getEmail());
+        }
+        assertEquals(Set.of(0, 1, 2), used);
+    }
+
+    @Test
+    void whenEmailIsUsedOnAnotherShardShouldRejectIt() {
+
+        Integer first = service.create(newUser("shard-a@email.com")).getId();
+        Integer second = service.create(newUser("shard-b@email.com")).getId();
+        assertNotEquals(router.shardOf(first), router.shardOf(second));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.create(newUser("shard-a@email.com")));
+        UserDTO taken = newUser("shard-a@email.com");
+        taken.setId(second);
+        assertThrows(DataIntegrityViolationException.class, () -> service.update(taken));
+
+        UserDTO moved = newUser("shard-c@email.com");
+        moved.setId(first);
+        service.update(moved);
+        Integer third = service.create(newUser("shard-a@email.com")).getId();
+
+        List<BatchItemResult> results = service.createAll(List.of(
+                newUser("shard-b@email.com"), newUser("shard-d@email.com"), newUser("shard-d@email.com")));
+        assertEquals(List.of(400, 201, 400), results.stream().map(BatchItemResult::getStatus).collect(Collectors.toList()));
+
+        service.delete(third);
+        service.create(newUser("shard-a@email.com"));
+    }
+
+    @Test
+    void whenReservationIsStaleShouldBindItIfAShardHasTheEmail() {
+
+        Integer id = service.create(newUser("shard-stale@email.com")).getId();
+        Timestamp stale = Timestamp.from(Instant.now().minus(EmailDirectory.RESERVATION_TIMEOUT).minusSeconds(1));
+        directory.update("UPDATE USER_EMAIL SET USER_ID = NULL, RESERVED_AT = ? WHERE EMAIL = ?", stale, "shard-stale@email.com");
+        directory.update("INSERT INTO USER_EMAIL (EMAIL, USER_ID, RESERVED_AT) VALUES (?, NULL, ?)", "shard-orphan@email.com", stale);
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.create(newUser("shard-stale@email.com")));
+        assertEquals(id, firstShard.queryForObject("SELECT USER_ID FROM USER_EMAIL WHERE EMAIL = ?", Integer.class, "shard-stale@email.com"));
+        assertNotNull(service.create(newUser("shard-orphan@email.com")).getId());
+    }
+
+    @Test
+    void whenEntryIsLeftByAnUnfinishedWriteShouldFreeItOnceStale() {
+
+        Integer kept = service.create(newUser("shard-kept@email.com")).getId();
+        Integer deleted = service.create(newUser("shard-deleted@email.com")).getId();
+        service.delete(deleted);
+        Timestamp stale = Timestamp.from(Instant.now().minus(EmailDirectory.RESERVATION_TIMEOUT).minusSeconds(1));
+        // a claim whose update never reached the shard, a deleted user's email never released, and a claim
+        // whose update may still be running
+        insertEntry("shard-claimed@email.com", kept, stale);
+        insertEntry("shard-deleted@email.com", deleted, stale);
+        insertEntry("shard-pending@email.com", kept, Timestamp.from(Instant.now()));
+
+        Integer other = service.create(newUser("shard-deleted@email.com")).getId();
+        UserDTO update = newUser("shard-claimed@email.com");
+        update.setId(other);
+        service.update(update);
+        assertEquals(other, firstShard.queryForObject("SELECT USER_ID FROM USER_EMAIL WHERE EMAIL = ?", Integer.class, "shard-claimed@email.com"));
+
+        update.setEmail("shard-pending@email.com");
+        assertThrows(DataIntegrityViolationException.class, () -> service.update(update));
+        update.setEmail("shard-kept@email.com");
+        assertThrows(DataIntegrityViolationException.class, () -> service.update(update));
+    }
+
+    @Test
+    void whenAddingShardsShouldKeepExistingIdsInPlace() {
+
+        assertEquals(100_000_000, router.getRangeSize());
+        IdRangeShardRouter grown = new IdRangeShardRouter(router.getShards() + 1, router.getRangeSize());
+        for (int shard = 0; shard < router.getShards(); shard++)
+            assertEquals(shard, grown.shardOf(router.rangeStart(shard)));
+        assertThrows(IllegalArgumentException.class, () -> new IdRangeShardRouter(22, router.getRangeSize()));
+    }
+
+    @Test
+    void whenClosedShouldCloseShardPoolsButNotTheFirst() {
+
+        HikariDataSource first = new HikariDataSource();
+        HikariDataSource second = new HikariDataSource();
+
+        new ShardRoutingDataSource(List.of(first, second)).close();
+
+        assertTrue(second.isClosed());
+        assertFalse(first.isClosed());
+        first.close();
+    }
+
+    @Test
+    void whenPagingShouldWalkAllShardsInIdOrder() {
+
+        List<UserDTO> users = new ArrayList<>();
+        for (int i = 0; i < 7; i++)
+            users.add(newUser("shard-page" + i + "@email.com"));
+        Set<Integer> created = service.createAll(users).stream().map(BatchItemResult::getId).collect(Collectors.toSet());
+
+        List<Integer> walked = new ArrayList<>();
+        List<UserDTO> page = service.findPage(null, 3);
+        while (!page.isEmpty()) {
+            page.forEach(user -> walked.add(user.getId()));
+            page = service.findPage(page.get(page.size() - 1).getId(), 3);
+        }
+
+        assertEquals(walked.stream().sorted().collect(Collectors.toList()), walked);
+        assertTrue(walked.containsAll(created));
+        assertEquals(walked.size(), new HashSet<>(walked).size());
+    }
+
+    private void insertEntry(String email, Integer userId, Timestamp reservedAt) {
+        directory.update("INSERT INTO USER_EMAIL (EMAIL, USER_ID, RESERVED_AT) VALUES (?, ?, ?)", email, userId, reservedAt);
+    }
+
+    private int rows(int shard, Integer id) {
+        JdbcTemplate jdbc = shard == 0 ? firstShard : shards.get(shard - 1);
+        return jdbc.queryForObject("SELECT COUNT(*) FROM USERS WHERE ID = ?", Integer.class, id);
+    }
+
+    private UserDTO newUser(String email) {
+        return UserDTO.builder().name("Shard").email(email).password("123").build();
+    }
+}
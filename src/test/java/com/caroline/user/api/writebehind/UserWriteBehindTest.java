@@ -0,0 +1,187 @@
+package com.caroline.user.api.writebehind;
+
+import com.caroline.user.api.model.DTO.BatchItemResult;
+import com.caroline.user.api.model.DTO.UserDTO;
+import com.caroline.user.api.password.PasswordHasher;
+import com.caroline.user.api.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserWriteBehindTest {
+
+    @Mock
+    private UserService service;
+
+    @Mock
+    private PasswordHasher hasher;
+
+    @TempDir
+    Path journalDir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private UserWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Mockito.when(hasher.hash(Mockito.any())).then(call -> call.getArgument(0) == null ? null : "{bcrypt}" + call.getArgument(0));
+        Mockito.when(service.updateAllEncoded(Mockito.any())).then(call -> {
+            List<UserDTO> users = call.getArgument(0);
+            return List.of(new BatchItemResult(0, users.get(0).getId(), 200, null));
+        });
+        writeBehind = newWriteBehind();
+        writeBehind.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.stop();
+    }
+
+    @Test
+    void whenSameUserIsUpdatedRepeatedlyShouldWriteOnce() {
+
+        writeBehind.submit(UserDTO.builder().id(1).name("Valdir").email("valdir@email.com").password("123").build());
+        writeBehind.submit(UserDTO.builder().id(1).name("Luiz").email("valdir@email.com").build());
+        writeBehind.flush();
+
+        ArgumentCaptor<List<UserDTO>> batch = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(service, Mockito.times(1)).updateAllEncoded(batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertEquals("Luiz", batch.getValue().get(0).getName());
+        assertEquals("{bcrypt}123", batch.getValue().get(0).getPassword());
+        assertEquals(1, registry.get("user.write-behind.coalesced").counter().count());
+        assertEquals(List.of(), listSegmentsExceptCurrent());
+    }
+
+    @Test
+    void whenUpdateIsQueuedShouldPinItToTheVersionItWasBasedOn() {
+
+        Mockito.when(service.findVersionById(1)).thenReturn(3L, 4L);
+
+        writeBehind.submit(UserDTO.builder().id(1).name("Valdir").build());
+        simulateCrash();
+        writeBehind = newWriteBehind();
+        writeBehind.start();
+        writeBehind.submit(UserDTO.builder().id(1).name("Luiz").build());
+        writeBehind.flush();
+
+        ArgumentCaptor<List<UserDTO>> batch = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(service).updateAllEncoded(batch.capture());
+        assertEquals("Luiz", batch.getValue().get(0).getName());
+        assertEquals(4L, batch.getValue().get(0).getVersion());
+    }
+
+    @Test
+    void whenRestartedBeforeFlushShouldReplayJournal() {
+
+        writeBehind.submit(UserDTO.builder().id(1).name("Luiz").email("luiz@email.com").password("123").build());
+        simulateCrash();
+
+        writeBehind = newWriteBehind();
+        writeBehind.start();
+        writeBehind.flush();
+
+        ArgumentCaptor<List<UserDTO>> batch = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(service).updateAllEncoded(batch.capture());
+        assertEquals("luiz@email.com", batch.getValue().get(0).getEmail());
+        assertEquals("{bcrypt}123", batch.getValue().get(0).getPassword());
+        Mockito.verify(hasher, Mockito.times(1)).hash(Mockito.any());
+    }
+
+    @Test
+    void whenFlushFailsShouldKeepUpdatesForNextFlush() {
+
+        Mockito.doThrow(new IllegalStateException("database down"))
+                .doReturn(List.of(new BatchItemResult(0, 1, 200, null)))
+                .when(service).updateAllEncoded(Mockito.any());
+
+        writeBehind.submit(UserDTO.builder().id(1).name("Valdir").email("valdir@email.com").build());
+        assertThrows(IllegalStateException.class, () -> writeBehind.flush());
+        writeBehind.flush();
+
+        Mockito.verify(service, Mockito.times(2)).updateAllEncoded(Mockito.any());
+        assertEquals(1, registry.get("user.write-behind.written").counter().count());
+    }
+
+    @Test
+    void whenOneUpdateCannotBeWrittenShouldDropItAndWriteTheOthers() {
+
+        Mockito.doAnswer(call -> {
+            List<UserDTO> users = call.getArgument(0);
+            if (users.stream().anyMatch(user -> user.getName().length() > 255))
+                throw new DataIntegrityViolationException("Value too long for column NAME");
+            return List.of(new BatchItemResult(0, users.get(0).getId(), 200, null));
+        }).when(service).updateAllEncoded(Mockito.any());
+
+        writeBehind.submit(UserDTO.builder().id(1).name("Valdir").build());
+        writeBehind.submit(UserDTO.builder().id(2).name("a".repeat(256)).build());
+        writeBehind.submit(UserDTO.builder().id(3).name("Luiz").build());
+        writeBehind.flush();
+        writeBehind.flush(List.of(2));
+
+        Mockito.verify(service, Mockito.times(4)).updateAllEncoded(Mockito.any());
+        assertEquals(2, registry.get("user.write-behind.written").counter().count());
+        assertEquals(1, registry.get("user.write-behind.rejected").counter().count());
+        assertEquals(List.of(), listSegmentsExceptCurrent());
+    }
+
+    @Test
+    void whenLaterUpdateLeavesFieldsOutShouldMergeLikeSequentialUpdates() {
+
+        writeBehind.submit(UserDTO.builder().id(1).name("Valdir").email("valdir@email.com").password("123").build());
+        writeBehind.submit(UserDTO.builder().id(1).name("Luiz").build());
+        writeBehind.flush();
+
+        ArgumentCaptor<List<UserDTO>> batch = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(service).updateAllEncoded(batch.capture());
+        assertEquals("Luiz", batch.getValue().get(0).getName());
+        assertNull(batch.getValue().get(0).getEmail());
+        assertEquals("{bcrypt}123", batch.getValue().get(0).getPassword());
+    }
+
+    @Test
+    void whenSynchronousWriteFollowsShouldFlushOnlyIfUserIsQueued() {
+
+        writeBehind.submit(UserDTO.builder().id(1).name("Valdir").email("valdir@email.com").build());
+
+        writeBehind.flush(List.of(2));
+        Mockito.verify(service, Mockito.never()).updateAllEncoded(Mockito.any());
+
+        writeBehind.flush(List.of(2, 1));
+        Mockito.verify(service, Mockito.times(1)).updateAllEncoded(Mockito.any());
+    }
+
+    private UserWriteBehind newWriteBehind() {
+        return new UserWriteBehind(service, hasher, new UpdateJournal(journalDir), new ObjectMapper(),
+                100, Duration.ofHours(1), registry);
+    }
+
+    /**
+     * Abandons the instance without its final flush, like a killed process; the journal is already fsynced.
+     */
+    private void simulateCrash() {
+        writeBehind = null;
+    }
+
+    private List<Path> listSegmentsExceptCurrent() {
+        List<Path> segments = new UpdateJournal(journalDir).segments();
+        return segments.subList(0, segments.size() - 1);
+    }
+}
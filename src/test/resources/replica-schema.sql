@@ -0,0 +1,2 @@
+CREATE LINKED TABLE IF NOT EXISTS PRIMARY_USER('org.h2.Driver', 'jdbc:h2:mem:routing-primary', 'sa', '', 'PUBLIC.USERS');
+CREATE TABLE IF NOT EXISTS USERS AS SELECT * FROM PRIMARY_USER WITH NO DATA;
@@ -0,0 +1,3 @@
+CREATE TABLE IF NOT EXISTS USERS (ID INTEGER NOT NULL, DELETED_AT TIMESTAMP, EMAIL VARCHAR(255), NAME VARCHAR(255),
+    PASSWORD VARCHAR(255), VERSION BIGINT, PRIMARY KEY (ID), CONSTRAINT UK_USER_EMAIL UNIQUE (EMAIL));
+CREATE SEQUENCE IF NOT EXISTS USER_SEQ START WITH 1 INCREMENT BY 50;